@@ -0,0 +1,83 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlatTwoLevelHashTableBenchmark {
+    private static final int OPERATIONS = 1024;
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    @Param({"1.0", "4.0"})
+    private double loadFactor;
+
+    @Param({"BOXED", "INLINE", "ROBIN_HOOD"})
+    private String layout;
+
+    private Integer[] probes;
+    private TwoLevelHashTable<Integer, String> boxed;
+    private FlatTwoLevelHashTable<Integer, String> flat;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int capacity = Math.max(1, (int) (size / loadFactor));
+        Random random = new Random(42);
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = random.nextInt(Integer.MAX_VALUE);
+        }
+
+        if ("BOXED".equals(layout)) {
+            boxed = new TwoLevelHashTable<>(HashCipher.murmur3(), capacity);
+            for (Integer key : keys) {
+                boxed.insert(key, "value");
+            }
+        } else {
+            flat = new FlatTwoLevelHashTable<>(HashCipher.murmur3(), capacity, FlatTwoLevelHashTable.Layout.valueOf(layout));
+            for (Integer key : keys) {
+                flat.insert(key, "value");
+            }
+        }
+
+        probes = new Integer[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            probes[i] = i % 2 == 0 ? keys[random.nextInt(size)] : random.nextInt(Integer.MAX_VALUE);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void get(Blackhole blackhole) {
+        if (flat != null) {
+            for (Integer probe : probes) {
+                blackhole.consume(flat.get(probe));
+            }
+        } else {
+            for (Integer probe : probes) {
+                blackhole.consume(boxed.get(probe));
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TwoLevelHashTableBenchmark {
+    private static final int OPERATIONS = 1024;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"0.5", "1.0", "4.0"})
+    private double loadFactor;
+
+    @Param({"SEQUENTIAL", "UNIFORM", "SAME_BUCKET"})
+    private KeyDistribution distribution;
+
+    @Param({"HASH_CODE", "REMAINDER", "MULTIPLICATIVE", "PRIME", "FIBONACCI", "MURMUR3", "XXHASH", "TABULATION", "UNIVERSAL"})
+    private Cipher cipher;
+
+    private int capacity;
+    private Integer[] keys;
+    private Integer[] probes;
+    private List<Integer> probeBatch;
+    private List<Map.Entry<Integer, String>> entryBatch;
+    private TwoLevelHashTable<Integer, String> table;
+    private int cursor;
+    private boolean alternate;
+
+    @Setup(Level.Trial)
+    public void setUpKeys() {
+        capacity = Math.max(1, (int) (size / loadFactor));
+        keys = distribution.keys(size, capacity, new Random(42));
+
+        Random random = new Random(7);
+        probes = new Integer[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            probes[i] = i % 2 == 0 ? keys[random.nextInt(size)] : random.nextInt(Integer.MAX_VALUE);
+        }
+        probeBatch = Arrays.asList(probes);
+        entryBatch = new ArrayList<>(OPERATIONS);
+        for (int i = 0; i < OPERATIONS; i++) {
+            entryBatch.add(Map.entry(keys[i % size], "value"));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpTable() {
+        table = new TwoLevelHashTable<>(cipher.function, capacity);
+        for (Integer key : keys) {
+            table.insert(key, "value");
+        }
+        cursor = 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public TwoLevelHashTable<Integer, String> insert() {
+        TwoLevelHashTable<Integer, String> fresh = new TwoLevelHashTable<>(cipher.function, capacity);
+        for (int i = 0; i < OPERATIONS; i++) {
+            fresh.insert(keys[(cursor + i) % size], "value");
+        }
+        cursor = (cursor + OPERATIONS) % size;
+        return fresh;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public TwoLevelHashTable<Integer, String> insertAll() {
+        TwoLevelHashTable<Integer, String> fresh = new TwoLevelHashTable<>(cipher.function, capacity);
+        fresh.insertAll(entryBatch);
+        return fresh;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public List<LinkedList<String>> searchAll() {
+        return table.searchAll(probeBatch);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void search(Blackhole blackhole) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            LinkedList<String> result = table.search(probes[i]);
+            blackhole.consume(result);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void get(Blackhole blackhole) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            blackhole.consume(table.get(probes[i]));
+        }
+    }
+
+    @Benchmark
+    public boolean deleteAndReinsert() {
+        Integer key = keys[cursor];
+        cursor = (cursor + 1) % size;
+        boolean deleted = table.delete(key);
+        table.insert(key, "value");
+        return deleted;
+    }
+
+    @Benchmark
+    public TwoLevelHashTable<Integer, String> setHashCipher() {
+        alternate = !alternate;
+        table.setHashCipher(alternate ? Cipher.HASH_CODE.function : cipher.function);
+        return table;
+    }
+
+    @Benchmark
+    public TwoLevelHashTable<Integer, String> parallelSetHashCipher() {
+        alternate = !alternate;
+        table.setHashCipher(alternate ? Cipher.HASH_CODE.function : cipher.function, ForkJoinPool.commonPool());
+        return table;
+    }
+
+    @Benchmark
+    public Map<Integer, String> getPrimaryTable() {
+        return table.getPrimaryTable();
+    }
+
+    @Benchmark
+    public Map<Integer, LinkedList<String>> getSecondaryTable() {
+        return table.getSecondaryTable();
+    }
+
+    @Benchmark
+    public Map<Integer, LinkedList<String>> parallelGetSecondaryTable() {
+        return table.getSecondaryTable(ForkJoinPool.commonPool());
+    }
+
+    public enum KeyDistribution {
+        SEQUENTIAL {
+            @Override
+            Integer[] keys(int size, int capacity, Random random) {
+                Integer[] keys = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    keys[i] = i;
+                }
+                return keys;
+            }
+        },
+        UNIFORM {
+            @Override
+            Integer[] keys(int size, int capacity, Random random) {
+                Integer[] keys = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    keys[i] = random.nextInt(Integer.MAX_VALUE);
+                }
+                return keys;
+            }
+        },
+        SAME_BUCKET {
+            @Override
+            Integer[] keys(int size, int capacity, Random random) {
+                long step = (long) capacity * 170 <= Integer.MAX_VALUE ? (long) capacity * 170 : capacity;
+                long distinct = Math.max(1, Integer.MAX_VALUE / step);
+                Integer[] keys = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    keys[i] = (int) (i % distinct * step);
+                }
+                return keys;
+            }
+        };
+
+        abstract Integer[] keys(int size, int capacity, Random random);
+    }
+
+    public enum Cipher {
+        HASH_CODE(Object::hashCode),
+        REMAINDER(key -> key % 10),
+        MULTIPLICATIVE(key -> (int) ((key * 0.6180339887) % 1 * 10)),
+        PRIME(key -> key % 17),
+        FIBONACCI(HashCipher.fibonacci()),
+        MURMUR3(HashCipher.murmur3()),
+        XXHASH(HashCipher.xxHash()),
+        TABULATION(HashCipher.tabulation(42)),
+        UNIVERSAL(HashCipher.universal(42));
+
+        private final Function<Integer, Integer> function;
+
+        Cipher(Function<Integer, Integer> function) {
+            this.function = function;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ir.ac.kntu.twolevelhashtable.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The slower storage behind a {@link CachedTable}. Each key holds at most one value.
+ */
+public interface BackingStore<K, V> extends Closeable {
+    /**
+     * Returns the stored value of every key in {@code keys} that has one; absent keys are left out.
+     */
+    Map<K, V> loadAll(Collection<? extends K> keys) throws IOException;
+
+    /**
+     * Stores {@code entries}, replacing existing values, and removes {@code deleted}, as one batch.
+     */
+    void writeAll(Map<? extends K, ? extends V> entries, Collection<? extends K> deleted) throws IOException;
+
+    default V load(K key) throws IOException {
+        return loadAll(List.of(key)).get(key);
+    }
+}
@@ -0,0 +1,86 @@
+package ir.ac.kntu.twolevelhashtable.cache;
+
+/**
+ * Point-in-time counters of a {@link CachedTable}, produced by {@link CachedTable#getMetrics()}.
+ */
+public class CacheMetrics {
+    private final long hits;
+    private final long misses;
+    private final long loads;
+    private final long evictions;
+    private final long flushes;
+    private final long flushedWrites;
+    private final long flushFailures;
+    private final int size;
+    private final int pendingWrites;
+
+    CacheMetrics(long hits, long misses, long loads, long evictions, long flushes, long flushedWrites,
+                 long flushFailures, int size, int pendingWrites) {
+        this.hits = hits;
+        this.misses = misses;
+        this.loads = loads;
+        this.evictions = evictions;
+        this.flushes = flushes;
+        this.flushedWrites = flushedWrites;
+        this.flushFailures = flushFailures;
+        this.size = size;
+        this.pendingWrites = pendingWrites;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    /**
+     * Misses answered by the backing store with a value, which was then cached.
+     */
+    public long getLoads() {
+        return loads;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    /**
+     * Puts and deletes written to the backing store, after coalescing repeated writes of a key.
+     */
+    public long getFlushedWrites() {
+        return flushedWrites;
+    }
+
+    public long getFlushFailures() {
+        return flushFailures;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Puts and deletes buffered but not yet written to the backing store.
+     */
+    public int getPendingWrites() {
+        return pendingWrites;
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size + ", hits=" + hits + ", misses=" + misses + ", hitRate=" + getHitRate()
+                + ", loads=" + loads + ", evictions=" + evictions + ", flushes=" + flushes
+                + ", flushedWrites=" + flushedWrites + ", flushFailures=" + flushFailures
+                + ", pendingWrites=" + pendingWrites;
+    }
+}
@@ -0,0 +1,312 @@
+package ir.ac.kntu.twolevelhashtable.cache;
+
+import ir.ac.kntu.twolevelhashtable.table.HashCipher;
+import ir.ac.kntu.twolevelhashtable.table.TwoLevelHashTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Uses a {@link TwoLevelHashTable} of at most {@code maxEntries} entries as a cache in front of a
+ * {@link BackingStore}. A miss is loaded from the store and cached (read-through); a full cache drops an entry
+ * chosen by its {@link EvictionPolicy}. Puts and deletes change the cache at once and are buffered, the newest
+ * write of a key replacing older ones, then written to the store in batches (write-behind): on a background
+ * thread once {@code writeBatchSize} writes are pending and every {@code flushIntervalMillis}, and on the
+ * caller's thread in {@link #flush} and {@link #close}. Misses consult the buffer before the store, so an entry
+ * evicted or deleted while its write is pending is never read back stale. A failed flush keeps its writes
+ * buffered for the next one.
+ */
+public class CachedTable<K, V> implements Closeable {
+    private static final int DEFAULT_WRITE_BATCH_SIZE = 256;
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+    private static final Object DELETED = new Object();
+
+    private final BackingStore<K, V> store;
+    private final TwoLevelHashTable<K, V> table;
+    private final EvictionPolicy.Evictor<K> evictor;
+    private final int maxEntries;
+    private final int writeBatchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    private Map<K, Object> pending = new LinkedHashMap<>();
+    private Map<K, Object> flushing = Collections.emptyMap();
+    private long writes;
+    private boolean closed;
+
+    private long hits;
+    private long misses;
+    private long loads;
+    private long evictions;
+    private long flushes;
+    private long flushedWrites;
+    private long flushFailures;
+
+    public CachedTable(BackingStore<K, V> store, int maxEntries, EvictionPolicy policy) {
+        this(store, maxEntries, policy, DEFAULT_WRITE_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * A non-positive {@code flushIntervalMillis} disables the periodic flush.
+     */
+    public CachedTable(BackingStore<K, V> store, int maxEntries, EvictionPolicy policy,
+                       int writeBatchSize, long flushIntervalMillis) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.store = store;
+        this.maxEntries = maxEntries;
+        this.writeBatchSize = Math.max(1, writeBatchSize);
+        this.table = new TwoLevelHashTable<>(HashCipher.murmur3(), maxEntries);
+        this.evictor = policy.create(maxEntries);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (flushIntervalMillis > 0) {
+            flusher.scheduleWithFixedDelay(this::flushInBackground, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public V get(K key) throws IOException {
+        long writesBefore;
+        lock.lock();
+        try {
+            checkOpen();
+            V cached = table.get(key);
+            if (cached != null) {
+                hits++;
+                evictor.touched(key);
+                return cached;
+            }
+            misses++;
+            Object buffered = buffered(key);
+            if (buffered != null) {
+                return buffered == DELETED ? null : admit(key, (V) buffered);
+            }
+            writesBefore = writes;
+        } finally {
+            lock.unlock();
+        }
+
+        V loaded = store.load(key);
+        lock.lock();
+        try {
+            V cached = table.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            Object buffered = buffered(key);
+            if (buffered != null) {
+                return buffered == DELETED ? null : (V) buffered;
+            }
+            // A write that raced the load may already be flushed, so the loaded value could be stale.
+            if (loaded != null && writes == writesBefore) {
+                loads++;
+                admit(key, loaded);
+            }
+            return loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        Objects.requireNonNull(value);
+        boolean full;
+        lock.lock();
+        try {
+            checkOpen();
+            if (table.containsKey(key)) {
+                table.delete(key);
+                table.insert(key, value);
+                evictor.touched(key);
+            } else {
+                admit(key, value);
+            }
+            full = buffer(key, value);
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            scheduleFlush();
+        }
+    }
+
+    public void delete(K key) {
+        boolean full;
+        lock.lock();
+        try {
+            checkOpen();
+            if (table.containsKey(key)) {
+                table.delete(key);
+                evictor.removed(key);
+            }
+            full = buffer(key, DELETED);
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Writes every buffered put and delete to the backing store as one batch.
+     */
+    public void flush() throws IOException {
+        flushLock.lock();
+        try {
+            Map<K, Object> batch;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                flushing = batch;
+                pending = new LinkedHashMap<>();
+            } finally {
+                lock.unlock();
+            }
+
+            Map<K, V> entries = new LinkedHashMap<>();
+            List<K> deleted = new ArrayList<>();
+            batch.forEach((key, value) -> {
+                if (value == DELETED) {
+                    deleted.add(key);
+                } else {
+                    entries.put(key, (V) value);
+                }
+            });
+
+            boolean written = false;
+            try {
+                store.writeAll(entries, deleted);
+                written = true;
+            } finally {
+                lock.lock();
+                try {
+                    flushing = Collections.emptyMap();
+                    if (written) {
+                        flushes++;
+                        flushedWrites += batch.size();
+                    } else {
+                        flushFailures++;
+                        batch.putAll(pending);
+                        pending = batch;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return table.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheMetrics getMetrics() {
+        lock.lock();
+        try {
+            return new CacheMetrics(hits, misses, loads, evictions, flushes, flushedWrites, flushFailures,
+                    table.size(), pending.size() + flushing.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the background flushes, writes what is still buffered and closes the backing store.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        flusher.shutdown();
+        try {
+            flush();
+        } finally {
+            store.close();
+        }
+    }
+
+    private V admit(K key, V value) {
+        while (table.size() >= maxEntries) {
+            K victim = evictor.victim();
+            table.delete(victim);
+            evictor.removed(victim);
+            evictions++;
+        }
+        table.insert(key, value);
+        evictor.added(key);
+        return value;
+    }
+
+    private Object buffered(K key) {
+        Object value = pending.get(key);
+        return value != null ? value : flushing.get(key);
+    }
+
+    private boolean buffer(K key, Object value) {
+        pending.put(key, value);
+        writes++;
+        return pending.size() >= writeBatchSize;
+    }
+
+    private void scheduleFlush() {
+        if (flushQueued.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushInBackground);
+            } catch (RejectedExecutionException e) {
+                // Closing; close() flushes what is left.
+            }
+        }
+    }
+
+    private void flushInBackground() {
+        flushQueued.set(false);
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            // Counted in the metrics; the writes stay buffered for the next flush.
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Cache is closed");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ir.ac.kntu.twolevelhashtable.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Chooses which entry a full {@link CachedTable} drops to make room.
+ */
+public enum EvictionPolicy {
+    /**
+     * Drops the entry least recently read or written.
+     */
+    LRU {
+        @Override
+        <K> Evictor<K> create(int capacity) {
+            return new LruEvictor<>(capacity);
+        }
+    },
+    /**
+     * Approximates LRU with one reference bit per entry: a hand sweeps the entries, clearing set bits and
+     * dropping the first entry whose bit is already clear. A hit only sets a bit, so reads never reorder a list.
+     */
+    CLOCK {
+        @Override
+        <K> Evictor<K> create(int capacity) {
+            return new ClockEvictor<>(capacity);
+        }
+    };
+
+    abstract <K> Evictor<K> create(int capacity);
+
+    /**
+     * Tracks the cached keys on behalf of a policy. Callers remove the victim themselves.
+     */
+    interface Evictor<K> {
+        void added(K key);
+
+        void touched(K key);
+
+        void removed(K key);
+
+        K victim();
+    }
+
+    private static final class LruEvictor<K> implements Evictor<K> {
+        private final LinkedHashMap<K, Boolean> order;
+
+        LruEvictor(int capacity) {
+            order = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true);
+        }
+
+        @Override
+        public void added(K key) {
+            order.put(key, Boolean.TRUE);
+        }
+
+        @Override
+        public void touched(K key) {
+            order.get(key);
+        }
+
+        @Override
+        public void removed(K key) {
+            order.remove(key);
+        }
+
+        @Override
+        public K victim() {
+            Iterator<K> eldest = order.keySet().iterator();
+            return eldest.hasNext() ? eldest.next() : null;
+        }
+    }
+
+    private static final class ClockEvictor<K> implements Evictor<K> {
+        private final Object[] keys;
+        private final boolean[] referenced;
+        private final Map<K, Integer> slots;
+        private final int[] freeSlots;
+        private int freeCount;
+        private int hand;
+
+        ClockEvictor(int capacity) {
+            keys = new Object[capacity];
+            referenced = new boolean[capacity];
+            slots = new HashMap<>(capacity * 4 / 3 + 1);
+            freeSlots = new int[capacity];
+            for (int i = 0; i < capacity; i++) {
+                freeSlots[i] = capacity - 1 - i;
+            }
+            freeCount = capacity;
+        }
+
+        @Override
+        public void added(K key) {
+            int slot = freeSlots[--freeCount];
+            keys[slot] = key;
+            referenced[slot] = false;
+            slots.put(key, slot);
+        }
+
+        @Override
+        public void touched(K key) {
+            Integer slot = slots.get(key);
+            if (slot != null) {
+                referenced[slot] = true;
+            }
+        }
+
+        @Override
+        public void removed(K key) {
+            Integer slot = slots.remove(key);
+            if (slot != null) {
+                keys[slot] = null;
+                referenced[slot] = false;
+                freeSlots[freeCount++] = slot;
+            }
+        }
+
+        @Override
+        public K victim() {
+            if (slots.isEmpty()) {
+                return null;
+            }
+            while (true) {
+                int slot = hand;
+                hand = (hand + 1) % keys.length;
+                if (keys[slot] == null) {
+                    continue;
+                }
+                if (!referenced[slot]) {
+                    return (K) keys[slot];
+                }
+                referenced[slot] = false;
+            }
+        }
+    }
+}
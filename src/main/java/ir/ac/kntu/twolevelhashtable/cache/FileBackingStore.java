@@ -0,0 +1,68 @@
+package ir.ac.kntu.twolevelhashtable.cache;
+
+import ir.ac.kntu.twolevelhashtable.storage.ByteCodec;
+import ir.ac.kntu.twolevelhashtable.storage.WriteAheadLog;
+import ir.ac.kntu.twolevelhashtable.table.HashCipher;
+import ir.ac.kntu.twolevelhashtable.table.TwoLevelHashTable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps entries in a local directory through a {@link WriteAheadLog}: every batch is appended to the log under
+ * a single fsync, and the log is folded into a snapshot once it has grown by {@code compactEvery} records.
+ */
+public class FileBackingStore<K, V> implements BackingStore<K, V> {
+    private static final int DEFAULT_COMPACT_EVERY = 100_000;
+
+    private final WriteAheadLog<K, V> wal;
+    private final int compactEvery;
+    private int writtenSinceCompaction;
+
+    private FileBackingStore(WriteAheadLog<K, V> wal, int compactEvery) {
+        this.wal = wal;
+        this.compactEvery = compactEvery;
+    }
+
+    public static <K, V> FileBackingStore<K, V> open(Path directory, ByteCodec<K> keyCodec,
+                                                     ByteCodec<V> valueCodec) throws IOException {
+        return open(directory, keyCodec, valueCodec, DEFAULT_COMPACT_EVERY);
+    }
+
+    public static <K, V> FileBackingStore<K, V> open(Path directory, ByteCodec<K> keyCodec, ByteCodec<V> valueCodec,
+                                                     int compactEvery) throws IOException {
+        TwoLevelHashTable<K, V> table = new TwoLevelHashTable<>(HashCipher.murmur3(), 1024, 0.75, 0);
+        return new FileBackingStore<>(WriteAheadLog.open(directory, table, keyCodec, valueCodec), compactEvery);
+    }
+
+    @Override
+    public Map<K, V> loadAll(Collection<? extends K> keys) {
+        Map<K, V> found = new HashMap<>();
+        for (K key : keys) {
+            V value = wal.get(key);
+            if (value != null) {
+                found.put(key, value);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized void writeAll(Map<? extends K, ? extends V> entries, Collection<? extends K> deleted)
+            throws IOException {
+        wal.replaceAll(entries, deleted);
+        writtenSinceCompaction += entries.size() + deleted.size();
+        if (writtenSinceCompaction >= compactEvery) {
+            wal.compact();
+            writtenSinceCompaction = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        wal.close();
+    }
+}
@@ -0,0 +1,92 @@
+package ir.ac.kntu.twolevelhashtable.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps entries in the Redis hash {@code <prefix>:entries}, with JSON-encoded keys as fields and JSON-encoded
+ * values. Lookups use one {@code HMGET} and writes go through pipelines of {@value #BATCH_SIZE} commands. The
+ * pool belongs to the caller and is not closed.
+ */
+public class RedisBackingStore<K, V> implements BackingStore<K, V> {
+    private static final int BATCH_SIZE = 500;
+
+    private final JedisPool pool;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String entriesKey;
+    private final JavaType valueType;
+
+    public RedisBackingStore(JedisPool pool, String prefix, Class<V> valueClass) {
+        this.pool = pool;
+        this.entriesKey = prefix + ":entries";
+        this.valueType = objectMapper.constructType(valueClass);
+    }
+
+    @Override
+    public Map<K, V> loadAll(Collection<? extends K> keys) throws IOException {
+        Map<K, V> found = new HashMap<>();
+        if (keys.isEmpty()) {
+            return found;
+        }
+        List<K> ordered = new ArrayList<>(keys);
+        String[] fields = new String[ordered.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = field(ordered.get(i));
+        }
+
+        List<String> values;
+        try (Jedis jedis = pool.getResource()) {
+            values = jedis.hmget(entriesKey, fields);
+        }
+        for (int i = 0; i < fields.length; i++) {
+            if (values.get(i) != null) {
+                found.put(ordered.get(i), objectMapper.readValue(values.get(i), valueType));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void writeAll(Map<? extends K, ? extends V> entries, Collection<? extends K> deleted) throws IOException {
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            int queued = 0;
+            for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                pipeline.hset(entriesKey, field(entry.getKey()), objectMapper.writeValueAsString(entry.getValue()));
+                queued = syncIfFull(pipeline, queued + 1);
+            }
+            for (K key : deleted) {
+                pipeline.hdel(entriesKey, field(key));
+                queued = syncIfFull(pipeline, queued + 1);
+            }
+            pipeline.sync();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private String field(K key) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(key);
+    }
+
+    private static int syncIfFull(Pipeline pipeline, int queued) {
+        if (queued < BATCH_SIZE) {
+            return queued;
+        }
+        pipeline.sync();
+        return 0;
+    }
+}
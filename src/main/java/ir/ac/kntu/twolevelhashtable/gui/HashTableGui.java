@@ -1,27 +1,61 @@
 package ir.ac.kntu.twolevelhashtable.gui;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import ir.ac.kntu.twolevelhashtable.storage.RedisTableStore;
+import ir.ac.kntu.twolevelhashtable.table.HashCipher;
+import ir.ac.kntu.twolevelhashtable.table.TableChangeListener;
+import ir.ac.kntu.twolevelhashtable.table.TableMetrics;
 import ir.ac.kntu.twolevelhashtable.table.TwoLevelHashTable;
-import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.*;
-import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
+/**
+ * Table operations, file and Redis I/O run one at a time on a background thread, in the order they were
+ * requested, while the event dispatch thread only validates input and shows results. The worker holds
+ * {@code tableLock} while it touches the table; the view paints from its row cache whenever the lock is busy.
+ */
 public class HashTableGui extends JFrame {
+    private static final int REHASH_BUCKETS_PER_STEP = 64;
+
     private TwoLevelHashTable<Integer, String> hashTable;
     private JTextField keyField, valueField;
     private JLabel collisionRateLabel;
     private JComboBox<String> hashFunctionSelector;
-    private Jedis jedis;
+    private RedisTableStore<Integer, String> redisStore;
     private ObjectMapper objectMapper;
     private JLabel redisIconLabel;
+    private JProgressBar progressBar;
+    private JButton cancelButton;
+    private JPanel displayPanel;
+    private final Lock tableLock = new ReentrantLock();
+    private final ExecutorService operations = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "table-operations");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Deque<TableOperation<?>> pendingOperations = new ArrayDeque<>();
 
     public HashTableGui() {
         setTitle("جدول هش دو طبقه               |               ساختمان‌داده");
@@ -33,8 +67,9 @@ public class HashTableGui extends JFrame {
         UIManager.put("Label.isHtml", Boolean.TRUE);
 
         objectMapper = new ObjectMapper();
-        jedis = new Jedis("localhost", 6379);
         hashTable = new TwoLevelHashTable<>(key -> key % 100, 100);
+        redisStore = new RedisTableStore<>(new JedisPool("localhost", 6379), "hashtable", Integer.class, String.class);
+        redisStore.attach(hashTable);
 
         try {
             Font vazirmatnFont = new Font("Vazirmatn", Font.BOLD, 16);
@@ -86,7 +121,8 @@ public class HashTableGui extends JFrame {
 
         add(mainPanel, BorderLayout.NORTH);
 
-        hashFunctionSelector = new JComboBox<>(new String[]{"هش hashCode", "هش باقی‌مانده", "هش ضرب", "هش اول"});
+        hashFunctionSelector = new JComboBox<>(new String[]{"هش hashCode", "هش باقی‌مانده", "هش ضرب", "هش اول",
+                "هش فیبوناچی", "هش MurmurHash3", "هش xxHash", "هش جدولی", "هش جهانی"});
         hashFunctionSelector.addActionListener(this::onHashFunctionChange);
         controlPanel.add(hashFunctionSelector);
         controlPanel.add(new JLabel("تابع هش:"));
@@ -103,7 +139,7 @@ public class HashTableGui extends JFrame {
         addButtons(controlPanel);
         add(createDisplayPanel(), BorderLayout.CENTER);
         add(createCollisionPanel(), BorderLayout.SOUTH);
-        updateDisplay();
+        collisionRateLabel.setText(statusText());
     }
 
 
@@ -121,36 +157,44 @@ public class HashTableGui extends JFrame {
             case "هش اول":
                 newHashFunction = key -> key % 17;
                 break;
+            case "هش فیبوناچی":
+                newHashFunction = HashCipher.fibonacci();
+                break;
+            case "هش MurmurHash3":
+                newHashFunction = HashCipher.murmur3();
+                break;
+            case "هش xxHash":
+                newHashFunction = HashCipher.xxHash();
+                break;
+            case "هش جدولی":
+                newHashFunction = HashCipher.tabulation();
+                break;
+            case "هش جهانی":
+                newHashFunction = HashCipher.universal();
+                break;
             default:
                 newHashFunction = Object::hashCode;
                 break;
         }
 
-        hashTable.setHashCipher(newHashFunction);
-        refreshTable();
-        updateDisplay();
-        repaint();
-        JOptionPane.showMessageDialog(this, "تابع هش بروزرسانی شده و جدول هش نیز بروزرسانی شد.");
-    }
-
-    private void refreshTable() {
-        Map<Integer, String> primaryTableCopy = new HashMap<>(hashTable.getPrimaryTable());
-        Map<Integer, LinkedList<String>> secondaryTableCopy = new HashMap<>(hashTable.getSecondaryTable());
-
-        hashTable.clear();
-
-        for (Map.Entry<Integer, String> entry : primaryTableCopy.entrySet()) {
-            hashTable.insert(entry.getKey(), entry.getValue());
-        }
-
-        for (Map.Entry<Integer, LinkedList<String>> entry : secondaryTableCopy.entrySet()) {
-            for (String value : entry.getValue()) {
-                hashTable.insert(entry.getKey(), value);
+        // A started migration always runs to completion, since the view only shows the new generation;
+        // cancelling it only suppresses the confirmation.
+        submit(operation -> {
+            underTableLock(() -> {
+                hashTable.migrateHashCipher(newHashFunction);
+                return null;
+            });
+            double progress = 0;
+            while (progress < 1) {
+                progress = underTableLock(() -> {
+                    hashTable.rehashStep(REHASH_BUCKETS_PER_STEP);
+                    return hashTable.getRehashProgress();
+                });
+                operation.reportProgress(progress);
             }
-        }
-
-        updateDisplay();
-        repaint();
+            return null;
+        }, ignored -> JOptionPane.showMessageDialog(this, "تابع هش بروزرسانی شده و جدول هش نیز بروزرسانی شد."),
+                "خطا در بروزرسانی تابع هش");
     }
 
 
@@ -197,94 +241,84 @@ public class HashTableGui extends JFrame {
     private void deleteAction(ActionEvent e) {
         try {
             int key = Integer.parseInt(keyField.getText());
-
-            if (hashTable.delete(key)) {
-                JOptionPane.showMessageDialog(this, "کلید " + key + " با موفقیت حذف شد. ");
-            } else {
-                JOptionPane.showMessageDialog(this, "کلید یافت نشد.");
-            }
-
-            updateDisplay();
-            repaint();
             keyField.setText("");
+
+            submit(operation -> underTableLock(() -> hashTable.delete(key)), (Boolean deleted) -> {
+                if (deleted) {
+                    JOptionPane.showMessageDialog(this, "کلید " + key + " با موفقیت حذف شد. ");
+                } else {
+                    JOptionPane.showMessageDialog(this, "کلید یافت نشد.");
+                }
+            }, "خطا در حذف کلید");
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "کلید وارد شده نامعتبر است و باید مقداری عددی باشد.");
         }
-        refreshTable();
     }
 
     private void searchAction(ActionEvent e) {
         try {
             int key = Integer.parseInt(keyField.getText());
-            String result = String.valueOf(hashTable.search(key));
 
-            if (result != null) {
-                JOptionPane.showMessageDialog(this, "مقدار " + result + " یافت شد. ");
-            } else {
-                JOptionPane.showMessageDialog(this, "کلید مورد نظر یافت نشد.");
-            }
+            submit(operation -> underTableLock(() -> String.valueOf(hashTable.search(key))), result -> {
+                if (result != null) {
+                    JOptionPane.showMessageDialog(this, "مقدار " + result + " یافت شد. ");
+                } else {
+                    JOptionPane.showMessageDialog(this, "کلید مورد نظر یافت نشد.");
+                }
+            }, "خطا در جست‌جوی کلید");
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "کلید وارد شده نامعتبر است و باید مقداری عددی باشد.");
         }
     }
 
     private void saveToJson(ActionEvent e) {
-        try {
-            Map<Integer, String> primaryTable = hashTable.getPrimaryTable();
-            Map<Integer, LinkedList<String>> secondaryTable = hashTable.getSecondaryTable();
-
-            File file = new File("hashtable_data.json");
-            objectMapper.writeValue(file, Map.of("primaryTable", primaryTable, "secondaryTable", secondaryTable));
-
-            JOptionPane.showMessageDialog(this, "جدول هش با موفقیت در فایل json ذخیره شد.");
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this, "خطا در ذخیره فایل json");
-        }
+        File file = new File("hashtable_data.json");
+        submit(operation -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(file, JsonEncoding.UTF8)) {
+                return underTableLock(() -> {
+                    hashTable.writeJson(generator);
+                    return null;
+                });
+            }
+        }, ignored -> JOptionPane.showMessageDialog(this, "جدول هش با موفقیت در فایل json ذخیره شد."),
+                "خطا در ذخیره فایل json");
     }
 
+    /**
+     * Parses the file into a scratch table shaped like the live one without holding the table lock, reporting
+     * progress by bytes read and stopping at the next read once cancelled, then hands the scratch table's buckets
+     * over to the live table, so the entries are never held twice.
+     */
     private void loadFromJson(ActionEvent e) {
-        try {
-            JFileChooser fileChooser = new JFileChooser();
-            int returnValue = fileChooser.showOpenDialog(this);
-
-            if (returnValue == JFileChooser.APPROVE_OPTION) {
-                File file = fileChooser.getSelectedFile();
-
-                Map<String, Object> data = objectMapper.readValue(file, Map.class);
-
-                Map<String, String> primaryTableData = objectMapper.convertValue(data.get("primaryTable"), Map.class);
-                Map<String, List<String>> secondaryTableData = objectMapper.convertValue(data.get("secondaryTable"), Map.class);
-
-                Map<Integer, String> primaryTable = new HashMap<>();
-                for (Map.Entry<String, String> entry : primaryTableData.entrySet()) {
-                    primaryTable.put(Integer.parseInt(entry.getKey()), entry.getValue());
-                }
-
-                Map<Integer, LinkedList<String>> secondaryTable = new HashMap<>();
-                for (Map.Entry<String, List<String>> entry : secondaryTableData.entrySet()) {
-                    secondaryTable.put(Integer.parseInt(entry.getKey()), new LinkedList<>(entry.getValue()));
+        JFileChooser fileChooser = new JFileChooser();
+        int returnValue = fileChooser.showOpenDialog(this);
+
+        if (returnValue == JFileChooser.APPROVE_OPTION) {
+            File file = fileChooser.getSelectedFile();
+
+            submit(operation -> {
+                TwoLevelHashTable<Integer, String> parsed = underTableLock(() -> new TwoLevelHashTable<>(
+                        hashTable.getHashCipher(), hashTable.getCapacity()));
+                try (JsonParser parser = objectMapper.createParser(new ProgressInputStream(
+                        new FileInputStream(file), file.length(), operation))) {
+                    parsed.readJson(parser, Integer.class, String.class);
                 }
-
-                hashTable.clear();
-                primaryTable.forEach(hashTable::insert);
-                secondaryTable.forEach((key, values) -> values.forEach(value -> hashTable.insert(key, value)));
-
-                JOptionPane.showMessageDialog(this, "بازیابی جدول هش از فایل JSON با موفقیت انجام شد.");
-                updateDisplay();
-                repaint();
-            }
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this, "خطا در بازیابی جدول هش از فایل JSON");
+                return underTableLock(() -> {
+                    hashTable.moveFrom(parsed);
+                    return null;
+                });
+            }, ignored -> JOptionPane.showMessageDialog(this, "بازیابی جدول هش از فایل JSON با موفقیت انجام شد."),
+                    "خطا در بازیابی جدول هش از فایل JSON");
         }
     }
 
 
 
     private JPanel createDisplayPanel() {
-        JPanel displayPanel = new JPanel(new GridLayout(1, 2, 5, 5));
+        displayPanel = new JPanel(new GridLayout(1, 2, 5, 5));
         displayPanel.setBorder(BorderFactory.createLineBorder(Color.BLACK, 2));
-        displayPanel.add(new TablePanel(hashTable, true));
-        displayPanel.add(new TablePanel(hashTable, false));
+        displayPanel.add(new TablePanel(hashTable, tableLock, true).createScrollPane());
+        displayPanel.add(new TablePanel(hashTable, tableLock, false).createScrollPane());
         return displayPanel;
     }
 
@@ -293,6 +327,14 @@ public class HashTableGui extends JFrame {
         collisionPanel.setBorder(BorderFactory.createLineBorder(Color.BLACK, 2));
         collisionRateLabel = new JLabel("نرخ برخورد: 0.0");
         collisionPanel.add(collisionRateLabel);
+
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setVisible(false);
+        collisionPanel.add(progressBar);
+        cancelButton = new JButton("لغو");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> cancelOperations());
+        collisionPanel.add(cancelButton);
         return collisionPanel;
     }
 
@@ -300,132 +342,335 @@ public class HashTableGui extends JFrame {
         try {
             int key = Integer.parseInt(keyField.getText());
             String value = valueField.getText();
-            hashTable.insert(key, value);
-            updateDisplay();
             keyField.setText("");
             valueField.setText("");
+
+            submit(operation -> underTableLock(() -> {
+                hashTable.insert(key, value);
+                return null;
+            }), ignored -> {
+            }, "خطا در افزودن کلید");
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "کلید وارد شده نامعتبر است و باید مقداری عددی باشد.");
         }
-        refreshTable();
     }
 
     private void saveToRedis(ActionEvent e) {
-        try {
-            jedis.del("primaryTable");
-            jedis.del("secondaryTable");
+        submit(operation -> underTableLock(() -> {
+            redisStore.save();
+            return null;
+        }), ignored -> JOptionPane.showMessageDialog(this, "جدول هش با موفقیت در دیتابیس ردیسی ذخیره شد."),
+                "خطا در ذخیره‌سازی جدول هش در ردیس");
+    }
 
-            String primaryTableJson = objectMapper.writeValueAsString(hashTable.getPrimaryTable());
-            String secondaryTableJson = objectMapper.writeValueAsString(hashTable.getSecondaryTable());
+    private void loadFromRedis(ActionEvent e) {
+        submit(operation -> underTableLock(redisStore::load), (Boolean found) -> {
+            if (found) {
+                JOptionPane.showMessageDialog(this, "جدول هش با موفقیت از دیتابیس ردیسی بازیابی شد.");
+            } else {
+                JOptionPane.showMessageDialog(this, "هیچ جدول هشی در دیتابیس ردیسی یافت نشد.");
+            }
+        }, "خطا در بازیابی جدول هش از دیتابیس ردیسی");
+    }
 
-            jedis.set("primaryTable", primaryTableJson);
-            jedis.set("secondaryTable", secondaryTableJson);
+    private void clearAction() {
+        submit(operation -> underTableLock(() -> {
+            hashTable.clear();
+            return null;
+        }), ignored -> {
+        }, "خطا در حذف جدول");
+    }
 
-            JOptionPane.showMessageDialog(this, "جدول هش با موفقیت در دیتابیس ردیسی ذخیره شد.");
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this, "خطا در ذخیره‌سازی جدول هش در ردیس");
-        }
+    private String statusText() {
+        TableMetrics metrics = hashTable.getMetrics();
+        return "نرخ برخورد: " + hashTable.getCollisionRate()
+                + "   |   ضریب بار: " + String.format("%.2f", metrics.getLoadFactor())
+                + "   |   بیشترین طول زنجیره: " + metrics.getMaxChainLength();
     }
 
-    private void loadFromRedis(ActionEvent e) {
+    private <T> T underTableLock(Callable<T> action) throws Exception {
+        tableLock.lock();
         try {
-            String primaryTableJson = jedis.get("primaryTable");
-            String secondaryTableJson = jedis.get("secondaryTable");
-
-            if (primaryTableJson != null && secondaryTableJson != null) {
-                Map<String, Object> primaryTableData = objectMapper.readValue(primaryTableJson, Map.class);
-                Map<String, Object> secondaryTableData = objectMapper.readValue(secondaryTableJson, Map.class);
-
-                Map<Integer, String> primaryTable = new HashMap<>();
-                for (Map.Entry<String, Object> entry : primaryTableData.entrySet()) {
-                    Integer key = Integer.parseInt(entry.getKey());
-                    String value = (String) entry.getValue();
-                    primaryTable.put(key, value);
-                }
+            return action.call();
+        } finally {
+            tableLock.unlock();
+        }
+    }
 
-                Map<Integer, List<String>> secondaryTable = new HashMap<>();
-                for (Map.Entry<String, Object> entry : secondaryTableData.entrySet()) {
-                    Integer key = Integer.parseInt(entry.getKey());
-                    List<String> values = (List<String>) entry.getValue();
-                    secondaryTable.put(key, values);
-                }
+    /**
+     * Queues {@code task} behind the operations already submitted. {@code onSuccess} runs on the event dispatch
+     * thread once it completes; a failure shows {@code failureMessage} and a cancelled operation shows nothing.
+     */
+    private <T> void submit(Task<T> task, Consumer<T> onSuccess, String failureMessage) {
+        TableOperation<T> operation = new TableOperation<>(task, onSuccess, failureMessage);
+        operation.addPropertyChangeListener(event -> {
+            if ("state".equals(event.getPropertyName()) && event.getNewValue() == SwingWorker.StateValue.STARTED) {
+                progressBar.setIndeterminate(true);
+                progressBar.setVisible(true);
+            } else if ("progress".equals(event.getPropertyName())) {
+                progressBar.setIndeterminate(false);
+                progressBar.setValue((Integer) event.getNewValue());
+            }
+        });
+        pendingOperations.add(operation);
+        cancelButton.setEnabled(true);
+        operations.execute(operation);
+    }
+
+    private void cancelOperations() {
+        for (TableOperation<?> operation : new ArrayList<>(pendingOperations)) {
+            operation.cancel(false);
+        }
+    }
 
-                hashTable.clear();
+    private interface Task<T> {
+        T run(TableOperation<T> operation) throws Exception;
+    }
 
-                primaryTable.forEach((key, value) -> hashTable.insert(key, value));
-                secondaryTable.forEach((key, values) -> values.forEach(value -> hashTable.insert(key, value)));
+    private final class TableOperation<T> extends SwingWorker<T, Void> {
+        private final Task<T> task;
+        private final Consumer<T> onSuccess;
+        private final String failureMessage;
+        private volatile String status;
 
-                JOptionPane.showMessageDialog(this, "جدول هش با موفقیت از دیتابیس ردیسی بازیابی شد.");
-                updateDisplay();
-                repaint();
-            } else {
-                JOptionPane.showMessageDialog(this, "هیچ جدول هشی در دیتابیس ردیسی یافت نشد.");
+        TableOperation(Task<T> task, Consumer<T> onSuccess, String failureMessage) {
+            this.task = task;
+            this.onSuccess = onSuccess;
+            this.failureMessage = failureMessage;
+        }
+
+        void reportProgress(double fraction) {
+            setProgress((int) Math.min(100, Math.round(fraction * 100)));
+        }
+
+        @Override
+        protected T doInBackground() throws Exception {
+            try {
+                return isCancelled() ? null : task.run(this);
+            } finally {
+                status = underTableLock(HashTableGui.this::statusText);
             }
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this, "خطا در بازیابی جدول هش از دیتابیس ردیسی");
         }
-    }
 
-    private void clearAction() {
-        hashTable.clear();
-        updateDisplay();
-        repaint();
-        refreshTable();
+        @Override
+        protected void done() {
+            pendingOperations.remove(this);
+            if (pendingOperations.isEmpty()) {
+                progressBar.setVisible(false);
+                progressBar.setValue(0);
+                cancelButton.setEnabled(false);
+            }
+            if (status != null) {
+                collisionRateLabel.setText(status);
+            }
+            displayPanel.repaint();
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                onSuccess.accept(get());
+            } catch (ExecutionException e) {
+                JOptionPane.showMessageDialog(HashTableGui.this, failureMessage);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
-    private void updateDisplay() {
-        collisionRateLabel.setText("نرخ برخورد: " + hashTable.getCollisionRate());
+    /**
+     * Reports the fraction of {@code length} bytes read to {@code operation} and fails the next read once the
+     * operation is cancelled.
+     */
+    private static final class ProgressInputStream extends FilterInputStream {
+        private final long length;
+        private final TableOperation<?> operation;
+        private long read;
+
+        ProgressInputStream(InputStream in, long length, TableOperation<?> operation) {
+            super(in);
+            this.length = length;
+            this.operation = operation;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            advance(b < 0 ? 0 : 1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            int n = super.read(buffer, offset, count);
+            advance(Math.max(n, 0));
+            return n;
+        }
+
+        private void advance(int count) throws IOException {
+            if (operation.isCancelled()) {
+                throw new InterruptedIOException("Cancelled");
+            }
+            read += count;
+            if (length > 0) {
+                operation.reportProgress((double) read / length);
+            }
+        }
     }
 }
 
-class TablePanel extends JPanel {
-    private TwoLevelHashTable<Integer, String> hashTable;
-    private boolean isPrimaryTable;
-
-    public TablePanel(TwoLevelHashTable<Integer, String> hashTable, boolean isPrimaryTable) {
+/**
+ * Draws one row per bucket of the current generation, reading the table's arrays directly. Only the rows inside
+ * the clip are painted, their text is cached until the table reports the bucket changed, and a change repaints
+ * just that bucket's row. Changes reported from the operation thread are collected and applied in one batch on
+ * the event dispatch thread; rows missing from the cache are only rebuilt while {@code tableLock} is free.
+ */
+class TablePanel extends JPanel implements TableChangeListener {
+    private static final int ROW_HEIGHT = 30;
+    private static final int BUCKET_X = 20;
+    private static final int ENTRIES_X = 120;
+    private static final Font ROW_FONT = new Font("Monospaced", Font.PLAIN, 12);
+
+    private final TwoLevelHashTable<Integer, String> hashTable;
+    private final Lock tableLock;
+    private final boolean isPrimaryTable;
+    private final BitSet changedBuckets = new BitSet();
+    private boolean rebuilt;
+    private boolean flushScheduled;
+    private String[] rowCache;
+    private int capacity;
+
+    public TablePanel(TwoLevelHashTable<Integer, String> hashTable, Lock tableLock, boolean isPrimaryTable) {
         this.hashTable = hashTable;
+        this.tableLock = tableLock;
         this.isPrimaryTable = isPrimaryTable;
-        setPreferredSize(new Dimension(480, 600));
+        this.capacity = hashTable.getCapacity();
+        this.rowCache = new String[hashTable.getCapacity()];
+        hashTable.addChangeListener(this);
+    }
+
+    JScrollPane createScrollPane() {
+        JScrollPane scrollPane = new JScrollPane(this);
+        scrollPane.setColumnHeaderView(new JPanel() {
+            {
+                setPreferredSize(new Dimension(480, ROW_HEIGHT));
+            }
+
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                g.setFont(ROW_FONT);
+                g.drawString("Bucket ID", BUCKET_X, ROW_HEIGHT - 10);
+                g.drawString("(Key, Value)", ENTRIES_X, ROW_HEIGHT - 10);
+            }
+        });
+        scrollPane.getVerticalScrollBar().setUnitIncrement(ROW_HEIGHT);
+        return scrollPane;
     }
 
     @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        g.setFont(new Font("Monospaced", Font.PLAIN, 12));
-        int x = 20, y = 30, rowHeight = 30;
+    public Dimension getPreferredSize() {
+        return new Dimension(480, capacity * ROW_HEIGHT);
+    }
 
-        g.drawString("Bucket ID", x, y);
-        g.drawString("(Key, Value)", x + 100, y);
-        y += rowHeight;
+    @Override
+    public synchronized void bucketChanged(int index) {
+        changedBuckets.set(index);
+        scheduleFlush();
+    }
 
-        if (isPrimaryTable) {
-            for (Map.Entry<Integer, String> entry : hashTable.getPrimaryTable().entrySet()) {
-                int bucketId = hashTable.getHashCipher().apply(entry.getKey()) % hashTable.getCapacity();
+    @Override
+    public synchronized void tableRebuilt() {
+        rebuilt = true;
+        changedBuckets.clear();
+        scheduleFlush();
+    }
 
-                g.drawString(String.valueOf(bucketId), x, y);
-                g.drawString("(" + entry.getKey() + ", " + entry.getValue() + ")", x + 100, y);
-                y += rowHeight;
-            }
-        } else {
-            for (Map.Entry<Integer, LinkedList<String>> entry : hashTable.getSecondaryTable().entrySet()) {
-                int bucketId = hashTable.getHashCipher().apply(entry.getKey()) % hashTable.getCapacity();
-
-                boolean firstEntry = true;
-                for (String value : entry.getValue()) {
-                    if (firstEntry) {
-                        g.drawString(String.valueOf(bucketId), x, y);
-                        firstEntry = false;
-                    }
-                    g.drawString("(" + entry.getKey() + ", " + value + ")", x + 100, y);
-                    y += rowHeight;
-                }
-            }
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            SwingUtilities.invokeLater(this::flushChanges);
         }
     }
-}
 
+    private void flushChanges() {
+        BitSet changed;
+        boolean wasRebuilt;
+        synchronized (this) {
+            changed = (BitSet) changedBuckets.clone();
+            changedBuckets.clear();
+            wasRebuilt = rebuilt;
+            rebuilt = false;
+            flushScheduled = false;
+        }
 
+        if (wasRebuilt) {
+            capacity = hashTable.getCapacity();
+            rowCache = new String[capacity];
+            revalidate();
+            repaint();
+            return;
+        }
+        for (int index = changed.nextSetBit(0); index >= 0; index = changed.nextSetBit(index + 1)) {
+            if (index < rowCache.length) {
+                rowCache[index] = null;
+            }
+            repaint(0, index * ROW_HEIGHT, getWidth(), ROW_HEIGHT);
+        }
+    }
 
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        g.setFont(ROW_FONT);
+        int rows = rowCache.length;
+        Rectangle clip = g.getClipBounds();
+        int first = clip == null ? 0 : Math.max(0, clip.y / ROW_HEIGHT);
+        int last = clip == null ? rows - 1 : Math.min(rows - 1, (clip.y + clip.height) / ROW_HEIGHT);
 
+        boolean locked = false;
+        try {
+            for (int i = first; i <= last; i++) {
+                String row = rowCache[i];
+                if (row == null) {
+                    locked = locked || tableLock.tryLock();
+                    if (!locked || i >= hashTable.getCapacity()) {
+                        continue;
+                    }
+                    row = rowText(i);
+                    rowCache[i] = row;
+                }
+                drawRow(g, i, row);
+            }
+        } finally {
+            if (locked) {
+                tableLock.unlock();
+            }
+        }
+    }
 
+    private void drawRow(Graphics g, int i, String row) {
+        if (!row.isEmpty()) {
+            int y = (i + 1) * ROW_HEIGHT - 10;
+            g.drawString(String.valueOf(i), BUCKET_X, y);
+            g.drawString(row, ENTRIES_X, y);
+        }
+    }
 
+    private String rowText(int index) {
+        StringBuilder row = new StringBuilder();
+        if (isPrimaryTable) {
+            Map.Entry<Integer, String> entry = hashTable.primaryEntryAt(index);
+            if (entry != null) {
+                row.append('(').append(entry.getKey()).append(", ").append(entry.getValue()).append(')');
+            }
+        } else {
+            hashTable.forEachInChain(index, (key, value) -> {
+                if (row.length() > 0) {
+                    row.append(' ');
+                }
+                row.append('(').append(key).append(", ").append(value).append(')');
+            });
+        }
+        return row.toString();
+    }
+}
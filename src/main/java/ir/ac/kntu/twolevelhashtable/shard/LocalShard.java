@@ -0,0 +1,69 @@
+package ir.ac.kntu.twolevelhashtable.shard;
+
+import ir.ac.kntu.twolevelhashtable.table.ConcurrentTwoLevelHashTable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-process shard over a {@link ConcurrentTwoLevelHashTable}, safe to call from many threads.
+ */
+public class LocalShard<K, V> implements Shard<K, V> {
+    private final ConcurrentTwoLevelHashTable<K, V> table;
+
+    public LocalShard(Function<K, Integer> hashCipher, int capacity) {
+        this(new ConcurrentTwoLevelHashTable<>(hashCipher, capacity));
+    }
+
+    public LocalShard(ConcurrentTwoLevelHashTable<K, V> table) {
+        this.table = table;
+    }
+
+    @Override
+    public void putAll(List<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        for (Map.Entry<? extends K, ? extends V> entry : entries) {
+            table.insert(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public List<V> getAll(List<? extends K> keys) {
+        List<V> values = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            values.add(table.get(key));
+        }
+        return values;
+    }
+
+    @Override
+    public int deleteAll(List<? extends K> keys) {
+        int removed = 0;
+        for (K key : keys) {
+            removed += table.removeAll(key);
+        }
+        return removed;
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> entries() {
+        List<Map.Entry<K, V>> entries = new ArrayList<>(table.size());
+        table.forEach((key, value) -> entries.add(new AbstractMap.SimpleImmutableEntry<>(key, value)));
+        return entries;
+    }
+
+    @Override
+    public int size() {
+        return table.size();
+    }
+
+    public ConcurrentTwoLevelHashTable<K, V> getTable() {
+        return table;
+    }
+
+    @Override
+    public void close() {
+    }
+}
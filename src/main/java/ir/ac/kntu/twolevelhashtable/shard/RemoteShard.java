@@ -0,0 +1,156 @@
+package ir.ac.kntu.twolevelhashtable.shard;
+
+import ir.ac.kntu.twolevelhashtable.storage.ByteCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client side of a {@link ShardServer}. Calls share one connection and are serialized, each batch costing a
+ * single round trip. A call that fails part-way may leave a frame half written or half read, so any failure
+ * drops the connection and the next call opens a fresh one.
+ */
+public class RemoteShard<K, V> implements Shard<K, V> {
+    private final String host;
+    private final int port;
+    private final ByteCodec<K> keyCodec;
+    private final ByteCodec<V> valueCodec;
+
+    private Socket socket;
+    private DataInputStream in;
+    private DataOutputStream out;
+
+    public RemoteShard(String host, int port, ByteCodec<K> keyCodec, ByteCodec<V> valueCodec) throws IOException {
+        this.host = host;
+        this.port = port;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        connect();
+    }
+
+    @Override
+    public synchronized void putAll(List<? extends Map.Entry<? extends K, ? extends V>> entries) throws IOException {
+        exchange(() -> {
+            out.writeByte(ShardProtocol.PUT_ALL);
+            out.writeInt(entries.size());
+            for (Map.Entry<? extends K, ? extends V> entry : entries) {
+                ShardProtocol.write(out, keyCodec, entry.getKey());
+                ShardProtocol.write(out, valueCodec, entry.getValue());
+            }
+            send();
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized List<V> getAll(List<? extends K> keys) throws IOException {
+        return exchange(() -> {
+            writeKeys(ShardProtocol.GET_ALL, keys);
+            send();
+            int count = in.readInt();
+            List<V> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(ShardProtocol.read(in, valueCodec));
+            }
+            return values;
+        });
+    }
+
+    @Override
+    public synchronized int deleteAll(List<? extends K> keys) throws IOException {
+        return exchange(() -> {
+            writeKeys(ShardProtocol.DELETE_ALL, keys);
+            send();
+            return in.readInt();
+        });
+    }
+
+    @Override
+    public synchronized List<Map.Entry<K, V>> entries() throws IOException {
+        return exchange(() -> {
+            out.writeByte(ShardProtocol.ENTRIES);
+            send();
+            int count = in.readInt();
+            List<Map.Entry<K, V>> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                K key = ShardProtocol.read(in, keyCodec);
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(key, ShardProtocol.read(in, valueCodec)));
+            }
+            return entries;
+        });
+    }
+
+    @Override
+    public synchronized int size() throws IOException {
+        return exchange(() -> {
+            out.writeByte(ShardProtocol.SIZE);
+            send();
+            return in.readInt();
+        });
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (socket != null) {
+            socket.close();
+            socket = null;
+        }
+    }
+
+    private void connect() throws IOException {
+        Socket connection = new Socket(host, port);
+        try {
+            connection.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+        socket = connection;
+    }
+
+    private <T> T exchange(Exchange<T> exchange) throws IOException {
+        if (socket == null) {
+            connect();
+        }
+        try {
+            return exchange.run();
+        } catch (IOException | RuntimeException e) {
+            try {
+                socket.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            socket = null;
+            throw e;
+        }
+    }
+
+    private void writeKeys(byte op, List<? extends K> keys) throws IOException {
+        out.writeByte(op);
+        out.writeInt(keys.size());
+        for (K key : keys) {
+            ShardProtocol.write(out, keyCodec, key);
+        }
+    }
+
+    private void send() throws IOException {
+        out.flush();
+        if (in.readByte() == ShardProtocol.ERROR) {
+            throw new IOException("Shard failed: " + in.readUTF());
+        }
+    }
+
+    private interface Exchange<T> {
+        T run() throws IOException;
+    }
+}
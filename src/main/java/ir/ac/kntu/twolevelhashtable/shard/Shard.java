@@ -0,0 +1,28 @@
+package ir.ac.kntu.twolevelhashtable.shard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One partition of a {@link ShardedTable}. Every operation works on a batch so that a remote shard costs one
+ * round trip per call.
+ */
+public interface Shard<K, V> extends Closeable {
+    void putAll(List<? extends Map.Entry<? extends K, ? extends V>> entries) throws IOException;
+
+    /**
+     * Returns, for each key, its first value or {@code null}.
+     */
+    List<V> getAll(List<? extends K> keys) throws IOException;
+
+    /**
+     * Removes every entry of each key and returns the number of entries removed.
+     */
+    int deleteAll(List<? extends K> keys) throws IOException;
+
+    List<Map.Entry<K, V>> entries() throws IOException;
+
+    int size() throws IOException;
+}
@@ -0,0 +1,48 @@
+package ir.ac.kntu.twolevelhashtable.shard;
+
+import ir.ac.kntu.twolevelhashtable.storage.ByteCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format shared by {@link ShardServer} and {@link RemoteShard}. A request is an operation byte followed
+ * by its arguments; a response is a status byte followed by the result, or by an error message when the status
+ * is {@link #ERROR}. Keys and values are written as a length and their {@link ByteCodec} bytes, with a length
+ * of {@code -1} for {@code null}.
+ */
+final class ShardProtocol {
+    static final byte PUT_ALL = 1;
+    static final byte GET_ALL = 2;
+    static final byte DELETE_ALL = 3;
+    static final byte ENTRIES = 4;
+    static final byte SIZE = 5;
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    private ShardProtocol() {
+    }
+
+    static <T> void write(DataOutputStream out, ByteCodec<T> codec, T value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = codec.encode(value);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static <T> T read(DataInputStream in, ByteCodec<T> codec) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return codec.decode(ByteBuffer.wrap(bytes), 0, length);
+    }
+}
@@ -0,0 +1,157 @@
+package ir.ac.kntu.twolevelhashtable.shard;
+
+import ir.ac.kntu.twolevelhashtable.storage.ByteCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves a {@link Shard} to {@link RemoteShard} clients over TCP, one thread per connection. Run it in another
+ * JVM to spread a {@link ShardedTable} across processes, or in the same JVM for tests.
+ */
+public class ShardServer<K, V> implements Closeable {
+    private final Shard<K, V> shard;
+    private final ByteCodec<K> keyCodec;
+    private final ByteCodec<V> valueCodec;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "shard-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    public ShardServer(Shard<K, V> shard, int port, ByteCodec<K> keyCodec, ByteCodec<V> valueCodec) throws IOException {
+        this.shard = shard;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(port));
+        connections.execute(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                clients.add(socket);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                handle(op, in, out);
+                out.flush();
+            }
+        } catch (SocketException ignored) {
+        } catch (IOException e) {
+            // The connection is unusable once a frame is malformed; the client sees it closed.
+        } finally {
+            clients.remove(socket);
+        }
+    }
+
+    private void handle(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        int count = op == ShardProtocol.ENTRIES || op == ShardProtocol.SIZE ? 0 : in.readInt();
+        try {
+            switch (op) {
+                case ShardProtocol.PUT_ALL -> {
+                    List<Map.Entry<K, V>> entries = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        K key = ShardProtocol.read(in, keyCodec);
+                        entries.add(new AbstractMap.SimpleImmutableEntry<>(key, ShardProtocol.read(in, valueCodec)));
+                    }
+                    shard.putAll(entries);
+                    out.writeByte(ShardProtocol.OK);
+                }
+                case ShardProtocol.GET_ALL -> {
+                    List<V> values = shard.getAll(readKeys(in, count));
+                    out.writeByte(ShardProtocol.OK);
+                    out.writeInt(values.size());
+                    for (V value : values) {
+                        ShardProtocol.write(out, valueCodec, value);
+                    }
+                }
+                case ShardProtocol.DELETE_ALL -> {
+                    int removed = shard.deleteAll(readKeys(in, count));
+                    out.writeByte(ShardProtocol.OK);
+                    out.writeInt(removed);
+                }
+                case ShardProtocol.ENTRIES -> {
+                    List<Map.Entry<K, V>> entries = shard.entries();
+                    out.writeByte(ShardProtocol.OK);
+                    out.writeInt(entries.size());
+                    for (Map.Entry<K, V> entry : entries) {
+                        ShardProtocol.write(out, keyCodec, entry.getKey());
+                        ShardProtocol.write(out, valueCodec, entry.getValue());
+                    }
+                }
+                case ShardProtocol.SIZE -> {
+                    int size = shard.size();
+                    out.writeByte(ShardProtocol.OK);
+                    out.writeInt(size);
+                }
+                default -> throw new IOException("Unknown shard operation " + op);
+            }
+        } catch (RuntimeException e) {
+            out.writeByte(ShardProtocol.ERROR);
+            out.writeUTF(String.valueOf(e));
+        }
+    }
+
+    private List<K> readKeys(DataInputStream in, int count) throws IOException {
+        List<K> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(ShardProtocol.read(in, keyCodec));
+        }
+        return keys;
+    }
+
+    /**
+     * Stops accepting connections and drops the open ones. The served shard is left open.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket client : clients) {
+            client.close();
+        }
+        connections.shutdownNow();
+    }
+}
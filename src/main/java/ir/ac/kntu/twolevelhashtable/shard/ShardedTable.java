@@ -0,0 +1,319 @@
+package ir.ac.kntu.twolevelhashtable.shard;
+
+import ir.ac.kntu.twolevelhashtable.table.HashCipher;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Routes keys to named {@link Shard}s on a consistent-hash ring with {@code virtualNodes} points per shard,
+ * so adding or removing a shard only moves the keys of the ring segments it gains or loses. Batched calls
+ * are split by shard and sent to all shards concurrently. Adding or removing a shard rebalances under an
+ * exclusive lock, blocking other calls until the affected entries have moved.
+ *
+ * <p>Keys are placed by a MurmurHash3 of their {@code hashCode()}, so every process routing to remote shards
+ * must use key types whose hash codes are stable across JVMs, as {@code Integer} and {@code String} are.
+ */
+public class ShardedTable<K, V> implements Closeable {
+    private static final int DEFAULT_VIRTUAL_NODES = 64;
+
+    private final HashCipher<Object> ringHash = HashCipher.murmur3();
+    private final int virtualNodes;
+    private final ExecutorService executor;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Integer, String> ring = new TreeMap<>();
+    private final Map<String, Shard<K, V>> shards = new LinkedHashMap<>();
+
+    public ShardedTable() {
+        this(DEFAULT_VIRTUAL_NODES, Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "sharded-table");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    public ShardedTable(int virtualNodes, ExecutorService executor) {
+        this.virtualNodes = virtualNodes;
+        this.executor = executor;
+    }
+
+    /**
+     * Adds {@code shard} under {@code id} and moves to it every entry it now owns.
+     */
+    public void addShard(String id, Shard<K, V> shard) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (shards.containsKey(id)) {
+                throw new IllegalArgumentException("Shard " + id + " already exists");
+            }
+            shards.put(id, shard);
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(ringHash.hash(id + "#" + i), id);
+            }
+            for (Map.Entry<String, Shard<K, V>> source : shards.entrySet()) {
+                if (!source.getKey().equals(id)) {
+                    moveMisplaced(source.getKey(), source.getValue());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves every entry of shard {@code id} to the remaining shards and returns the removed shard, still open.
+     */
+    public Shard<K, V> removeShard(String id) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Shard<K, V> shard = shards.get(id);
+            if (shard == null) {
+                return null;
+            }
+            if (shards.size() == 1 && shard.size() > 0) {
+                throw new IllegalStateException("Cannot remove the last shard while it holds entries");
+            }
+            ring.values().removeIf(id::equals);
+            shards.remove(id);
+            moveMisplaced(id, shard);
+            return shard;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public String shardFor(K key) {
+        lock.readLock().lock();
+        try {
+            return owner(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(K key, V value) throws IOException {
+        putAll(List.of(new AbstractMap.SimpleImmutableEntry<>(key, value)));
+    }
+
+    public V get(K key) throws IOException {
+        return getAll(List.of(key)).get(0);
+    }
+
+    public int delete(K key) throws IOException {
+        return deleteAll(List.of(key));
+    }
+
+    public void putAll(List<? extends Map.Entry<? extends K, ? extends V>> entries) throws IOException {
+        lock.readLock().lock();
+        try {
+            Map<String, List<Map.Entry<? extends K, ? extends V>>> batches = new HashMap<>();
+            for (Map.Entry<? extends K, ? extends V> entry : entries) {
+                batches.computeIfAbsent(owner(entry.getKey()), id -> new ArrayList<>()).add(entry);
+            }
+            List<Callable<Void>> calls = new ArrayList<>();
+            batches.forEach((id, batch) -> calls.add(() -> {
+                shards.get(id).putAll(batch);
+                return null;
+            }));
+            invokeAll(calls);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the first value of each key, in the order of {@code keys}, fetching from all shards at once.
+     */
+    public List<V> getAll(List<? extends K> keys) throws IOException {
+        lock.readLock().lock();
+        try {
+            Map<String, List<Integer>> positions = groupByShard(keys);
+            List<String> ids = new ArrayList<>(positions.keySet());
+            List<Callable<List<V>>> calls = new ArrayList<>();
+            for (String id : ids) {
+                List<K> batch = new ArrayList<>();
+                for (int position : positions.get(id)) {
+                    batch.add(keys.get(position));
+                }
+                calls.add(() -> shards.get(id).getAll(batch));
+            }
+
+            List<List<V>> results = invokeAll(calls);
+            V[] values = (V[]) new Object[keys.size()];
+            for (int i = 0; i < ids.size(); i++) {
+                List<Integer> shardPositions = positions.get(ids.get(i));
+                for (int j = 0; j < shardPositions.size(); j++) {
+                    values[shardPositions.get(j)] = results.get(i).get(j);
+                }
+            }
+            return Arrays.asList(values);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deleteAll(List<? extends K> keys) throws IOException {
+        lock.readLock().lock();
+        try {
+            Map<String, List<K>> batches = new HashMap<>();
+            for (K key : keys) {
+                batches.computeIfAbsent(owner(key), id -> new ArrayList<>()).add(key);
+            }
+            List<Callable<Integer>> calls = new ArrayList<>();
+            batches.forEach((id, batch) -> calls.add(() -> shards.get(id).deleteAll(batch)));
+            int removed = 0;
+            for (int count : invokeAll(calls)) {
+                removed += count;
+            }
+            return removed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() throws IOException {
+        lock.readLock().lock();
+        try {
+            List<Callable<Integer>> calls = new ArrayList<>();
+            for (Shard<K, V> shard : shards.values()) {
+                calls.add(shard::size);
+            }
+            int size = 0;
+            for (int count : invokeAll(calls)) {
+                size += count;
+            }
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Integer> shardSizes() throws IOException {
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> sizes = new LinkedHashMap<>();
+            for (Map.Entry<String, Shard<K, V>> shard : shards.entrySet()) {
+                sizes.put(shard.getKey(), shard.getValue().size());
+            }
+            return sizes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Closes every shard and the executor.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            IOException failure = null;
+            for (Shard<K, V> shard : shards.values()) {
+                try {
+                    shard.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            shards.clear();
+            ring.clear();
+            executor.shutdown();
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private String owner(K key) {
+        if (ring.isEmpty()) {
+            throw new IllegalStateException("No shards");
+        }
+        SortedMap<Integer, String> tail = ring.tailMap(ringHash.hash(key));
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    private Map<String, List<Integer>> groupByShard(List<? extends K> keys) {
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            positions.computeIfAbsent(owner(keys.get(i)), id -> new ArrayList<>()).add(i);
+        }
+        return positions;
+    }
+
+    /**
+     * Copies the entries of {@code source} that the ring now assigns elsewhere to their owners, then deletes
+     * them from {@code source}, so a failure part-way leaves duplicates rather than losing entries.
+     */
+    private void moveMisplaced(String sourceId, Shard<K, V> source) throws IOException {
+        Map<String, List<Map.Entry<K, V>>> moves = new HashMap<>();
+        List<K> moved = new ArrayList<>();
+        for (Map.Entry<K, V> entry : source.entries()) {
+            String target = owner(entry.getKey());
+            if (!target.equals(sourceId)) {
+                moves.computeIfAbsent(target, id -> new ArrayList<>()).add(entry);
+                moved.add(entry.getKey());
+            }
+        }
+        for (Map.Entry<String, List<Map.Entry<K, V>>> move : moves.entrySet()) {
+            shards.get(move.getKey()).putAll(move.getValue());
+        }
+        if (!moved.isEmpty()) {
+            source.deleteAll(moved);
+        }
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> calls) throws IOException {
+        if (calls.size() == 1) {
+            try {
+                return Collections.singletonList(calls.get(0).call());
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+
+        List<Future<T>> futures = new ArrayList<>(calls.size());
+        for (Callable<T> call : calls) {
+            futures.add(executor.submit(call));
+        }
+        List<T> results = new ArrayList<>(calls.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,43 @@
+package ir.ac.kntu.twolevelhashtable.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts keys and values to and from the raw bytes stored by the binary table formats.
+ */
+public interface ByteCodec<T> {
+    ByteCodec<Integer> INTEGER = new ByteCodec<>() {
+        @Override
+        public byte[] encode(Integer value) {
+            return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+        }
+
+        @Override
+        public Integer decode(ByteBuffer buffer, int offset, int length) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    ByteCodec<String> STRING = new ByteCodec<>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(ByteBuffer buffer, int offset, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    byte[] encode(T value);
+
+    /**
+     * Decodes {@code length} bytes starting at absolute position {@code offset}, without moving the buffer's
+     * position.
+     */
+    T decode(ByteBuffer buffer, int offset, int length);
+}
@@ -0,0 +1,223 @@
+package ir.ac.kntu.twolevelhashtable.storage;
+
+import ir.ac.kntu.twolevelhashtable.table.TwoLevelHashTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Read-only view of a table written by {@link #write}, served straight from a memory-mapped file. Opening
+ * reads only the header; every lookup hashes the encoded key, reads one directory slot and scans that
+ * bucket's packed records in place, decoding just the values that match.
+ *
+ * <p>Layout (big-endian): a {@value #HEADER_BYTES}-byte header holding the magic number, format version,
+ * bucket count and entry count; a directory of {@code bucketCount + 1} record offsets; then, bucket by
+ * bucket, records of {@code keyLength, valueLength, keyBytes, valueBytes}. A value length of {@code -1}
+ * marks a null value. Files are limited to 2 GB, the size of a single mapping.
+ */
+public class MappedTwoLevelHashTable<K, V> implements Closeable {
+    private static final int MAGIC = 0x544C4854;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final ByteCodec<K> keyCodec;
+    private final ByteCodec<V> valueCodec;
+    private final int bucketCount;
+    private final long size;
+
+    private MappedTwoLevelHashTable(FileChannel channel, MappedByteBuffer buffer, ByteCodec<K> keyCodec, ByteCodec<V> valueCodec) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a two-level hash table file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported table file version " + buffer.getInt(4));
+        }
+        this.bucketCount = buffer.getInt(8);
+        this.size = buffer.getLong(16);
+    }
+
+    public static <K, V> MappedTwoLevelHashTable<K, V> open(Path path, ByteCodec<K> keyCodec, ByteCodec<V> valueCodec) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedTwoLevelHashTable<>(channel, buffer, keyCodec, valueCodec);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static <K, V> void write(TwoLevelHashTable<K, V> table, Path path, ByteCodec<K> keyCodec, ByteCodec<V> valueCodec) throws IOException {
+        // Both passes walk one list of references, so an entry whose TTL passes between them cannot leave the
+        // sizes counted in the first pass out of step with the records written in the second.
+        List<Map.Entry<K, V>> entries = table.entries().toList();
+        int bucketCount = Integer.highestOneBit(Math.max(1, entries.size()) * 2 - 1);
+        long[] bucketBytes = new long[bucketCount];
+        long[] entryCount = new long[1];
+        entries.forEach(entry -> {
+            byte[] keyBytes = keyCodec.encode(entry.getKey());
+            bucketBytes[bucketFor(keyBytes, bucketCount)] += RECORD_HEADER_BYTES + keyBytes.length
+                    + (entry.getValue() == null ? 0 : valueCodec.encode(entry.getValue()).length);
+            entryCount[0]++;
+        });
+
+        long directoryBytes = (long) (bucketCount + 1) * Long.BYTES;
+        long[] cursors = new long[bucketCount];
+        long offset = HEADER_BYTES + directoryBytes;
+        for (int i = 0; i < bucketCount; i++) {
+            cursors[i] = offset;
+            offset += bucketBytes[i];
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Table needs " + offset + " bytes, more than a single mapping can hold");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, offset);
+            out.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, bucketCount).putInt(12, 0).putLong(16, entryCount[0]);
+            for (int i = 0; i < bucketCount; i++) {
+                out.putLong(HEADER_BYTES + i * Long.BYTES, cursors[i]);
+            }
+            out.putLong(HEADER_BYTES + bucketCount * Long.BYTES, offset);
+
+            entries.forEach(entry -> {
+                K key = entry.getKey();
+                V value = entry.getValue();
+                byte[] keyBytes = keyCodec.encode(key);
+                byte[] valueBytes = value == null ? null : valueCodec.encode(value);
+                int bucket = bucketFor(keyBytes, bucketCount);
+                int position = (int) cursors[bucket];
+                out.putInt(position, keyBytes.length);
+                out.putInt(position + 4, valueBytes == null ? -1 : valueBytes.length);
+                out.put(position + RECORD_HEADER_BYTES, keyBytes);
+                if (valueBytes != null) {
+                    out.put(position + RECORD_HEADER_BYTES + keyBytes.length, valueBytes);
+                }
+                cursors[bucket] = position + RECORD_HEADER_BYTES + keyBytes.length + (valueBytes == null ? 0 : valueBytes.length);
+            });
+            out.force();
+        }
+    }
+
+    public V get(K key) {
+        byte[] keyBytes = keyCodec.encode(key);
+        int bucket = bucketFor(keyBytes, bucketCount);
+        int end = bucketEnd(bucket);
+        for (int position = bucketStart(bucket); position < end; position = nextRecord(position)) {
+            if (keyMatches(position, keyBytes)) {
+                return valueAt(position);
+            }
+        }
+        return null;
+    }
+
+    public LinkedList<V> search(K key) {
+        byte[] keyBytes = keyCodec.encode(key);
+        int bucket = bucketFor(keyBytes, bucketCount);
+        int end = bucketEnd(bucket);
+        LinkedList<V> results = null;
+        for (int position = bucketStart(bucket); position < end; position = nextRecord(position)) {
+            if (keyMatches(position, keyBytes)) {
+                if (results == null) {
+                    results = new LinkedList<>();
+                }
+                results.add(valueAt(position));
+            }
+        }
+        return results;
+    }
+
+    public boolean containsKey(K key) {
+        byte[] keyBytes = keyCodec.encode(key);
+        int bucket = bucketFor(keyBytes, bucketCount);
+        int end = bucketEnd(bucket);
+        for (int position = bucketStart(bucket); position < end; position = nextRecord(position)) {
+            if (keyMatches(position, keyBytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        int end = bucketEnd(bucketCount - 1);
+        for (int position = bucketStart(0); position < end; position = nextRecord(position)) {
+            action.accept(keyCodec.decode(buffer, position + RECORD_HEADER_BYTES, buffer.getInt(position)), valueAt(position));
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int bucketStart(int bucket) {
+        return (int) buffer.getLong(HEADER_BYTES + bucket * Long.BYTES);
+    }
+
+    private int bucketEnd(int bucket) {
+        return (int) buffer.getLong(HEADER_BYTES + (bucket + 1) * Long.BYTES);
+    }
+
+    private int nextRecord(int position) {
+        return position + RECORD_HEADER_BYTES + buffer.getInt(position) + Math.max(0, buffer.getInt(position + 4));
+    }
+
+    private boolean keyMatches(int position, byte[] keyBytes) {
+        if (buffer.getInt(position) != keyBytes.length) {
+            return false;
+        }
+        int keyStart = position + RECORD_HEADER_BYTES;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (buffer.get(keyStart + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private V valueAt(int position) {
+        int keyLength = buffer.getInt(position);
+        int valueLength = buffer.getInt(position + 4);
+        return valueLength < 0 ? null : valueCodec.decode(buffer, position + RECORD_HEADER_BYTES + keyLength, valueLength);
+    }
+
+    static int bucketFor(byte[] keyBytes, int bucketCount) {
+        int hash = 0x811C9DC5;
+        for (byte b : keyBytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash & (bucketCount - 1);
+    }
+}
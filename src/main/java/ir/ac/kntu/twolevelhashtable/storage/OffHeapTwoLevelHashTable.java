@@ -0,0 +1,380 @@
+package ir.ac.kntu.twolevelhashtable.storage;
+
+import ir.ac.kntu.twolevelhashtable.table.HashCipher;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Two-level hash table whose buckets and entries live outside the Java heap, in direct buffers. A bucket's
+ * primary entry is the head of its record list and the secondary chain follows it, so the garbage collector
+ * only ever sees a handful of buffer objects whatever the table size.
+ *
+ * <p>Records of {@code next, hash, keyLength, valueLength, keyBytes, valueBytes} are appended to segments of
+ * {@code segmentBytes} each; a value length of {@code -1} marks a null value. Deleted records are unlinked
+ * and their space is reclaimed by copying the live records into fresh segments once more than half of the
+ * used space is garbage. Keys are compared by their encoded bytes. {@link #close} frees the memory at once
+ * rather than waiting for the buffers to be collected.
+ *
+ * <p>The bucket heads and tails each take one direct buffer of eight bytes per bucket, which caps the capacity
+ * at {@value #MAX_CAPACITY} buckets.
+ */
+public class OffHeapTwoLevelHashTable<K, V> implements Closeable {
+    public static final int DEFAULT_SEGMENT_BYTES = 1 << 26;
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE / Long.BYTES;
+
+    private static final long NONE = -1;
+    private static final int NEXT = 0;
+    private static final int HASH = 8;
+    private static final int KEY_LENGTH = 12;
+    private static final int VALUE_LENGTH = 16;
+    private static final int RECORD_HEADER_BYTES = 20;
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Function<K, Integer> hashCipher;
+    private final int capacity;
+    private final ByteCodec<K> keyCodec;
+    private final ByteCodec<V> valueCodec;
+    private final int segmentBytes;
+
+    private ByteBuffer heads;
+    private ByteBuffer tails;
+    private List<ByteBuffer> segments = new ArrayList<>();
+    private int writeOffset;
+    private long usedBytes;
+    private long garbageBytes;
+    private int size;
+    private int collisions;
+    private int totalInserts;
+    private boolean closed;
+
+    public OffHeapTwoLevelHashTable(Function<K, Integer> hashCipher, int capacity, ByteCodec<K> keyCodec, ByteCodec<V> valueCodec) {
+        this(hashCipher, capacity, keyCodec, valueCodec, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public OffHeapTwoLevelHashTable(Function<K, Integer> hashCipher, int capacity, ByteCodec<K> keyCodec, ByteCodec<V> valueCodec,
+                                    int segmentBytes) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity " + capacity + " is outside 1.." + MAX_CAPACITY);
+        }
+        this.hashCipher = hashCipher;
+        this.capacity = capacity;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.segmentBytes = segmentBytes;
+        this.heads = ByteBuffer.allocateDirect(capacity * Long.BYTES);
+        this.tails = ByteBuffer.allocateDirect(capacity * Long.BYTES);
+        resetBuckets();
+    }
+
+    public void insert(K key, V value) {
+        checkOpen();
+        byte[] keyBytes = keyCodec.encode(key);
+        byte[] valueBytes = value == null ? null : valueCodec.encode(value);
+        int hash = HashCipher.hashOf(hashCipher, key);
+        int index = HashCipher.indexFor(hash, capacity);
+
+        long address = append(hash, keyBytes, valueBytes);
+        long tail = tails.getLong(index * Long.BYTES);
+        if (tail == NONE) {
+            heads.putLong(index * Long.BYTES, address);
+        } else {
+            collisions++;
+            segment(tail).putLong(offset(tail) + NEXT, address);
+        }
+        tails.putLong(index * Long.BYTES, address);
+        totalInserts++;
+        size++;
+    }
+
+    /**
+     * Removes every entry with {@code key} and returns whether there was one.
+     */
+    public boolean delete(K key) {
+        checkOpen();
+        byte[] keyBytes = keyCodec.encode(key);
+        int hash = HashCipher.hashOf(hashCipher, key);
+        int index = HashCipher.indexFor(hash, capacity);
+
+        boolean removed = false;
+        long previous = NONE;
+        long address = heads.getLong(index * Long.BYTES);
+        while (address != NONE) {
+            long next = next(address);
+            if (matches(address, hash, keyBytes)) {
+                if (previous == NONE) {
+                    heads.putLong(index * Long.BYTES, next);
+                } else {
+                    segment(previous).putLong(offset(previous) + NEXT, next);
+                }
+                if (next == NONE) {
+                    tails.putLong(index * Long.BYTES, previous);
+                }
+                garbageBytes += recordBytes(address);
+                size--;
+                removed = true;
+            } else {
+                previous = address;
+            }
+            address = next;
+        }
+
+        if (garbageBytes > segmentBytes && garbageBytes * 2 > usedBytes) {
+            compact();
+        }
+        return removed;
+    }
+
+    public V get(K key) {
+        long address = find(key);
+        return address == NONE ? null : valueAt(address);
+    }
+
+    public boolean containsKey(K key) {
+        return find(key) != NONE;
+    }
+
+    public LinkedList<V> search(K key) {
+        checkOpen();
+        byte[] keyBytes = keyCodec.encode(key);
+        int hash = HashCipher.hashOf(hashCipher, key);
+        LinkedList<V> results = null;
+        for (long address = heads.getLong(HashCipher.indexFor(hash, capacity) * Long.BYTES); address != NONE; address = next(address)) {
+            if (matches(address, hash, keyBytes)) {
+                if (results == null) {
+                    results = new LinkedList<>();
+                }
+                results.add(valueAt(address));
+            }
+        }
+        return results;
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        checkOpen();
+        for (int i = 0; i < capacity; i++) {
+            for (long address = heads.getLong(i * Long.BYTES); address != NONE; address = next(address)) {
+                ByteBuffer segment = segment(address);
+                int offset = offset(address);
+                action.accept(keyCodec.decode(segment, offset + RECORD_HEADER_BYTES, segment.getInt(offset + KEY_LENGTH)),
+                        valueAt(address));
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public double getCollisionRate() {
+        return totalInserts == 0 ? 0 : (double) collisions / totalInserts;
+    }
+
+    /**
+     * Native memory currently reserved by the table, including unreclaimed garbage and unused segment tails.
+     */
+    public long getOffHeapBytes() {
+        return heads.capacity() + tails.capacity() + (long) segments.size() * segmentBytes;
+    }
+
+    public void clear() {
+        checkOpen();
+        segments.forEach(OffHeapTwoLevelHashTable::release);
+        segments = new ArrayList<>();
+        resetBuckets();
+        size = 0;
+        collisions = 0;
+        totalInserts = 0;
+    }
+
+    /**
+     * Copies the live records into fresh segments in bucket order and frees the old ones.
+     */
+    public void compact() {
+        checkOpen();
+        List<ByteBuffer> oldSegments = segments;
+        ByteBuffer oldHeads = heads;
+        segments = new ArrayList<>();
+        heads = ByteBuffer.allocateDirect(capacity * Long.BYTES);
+        writeOffset = 0;
+        usedBytes = 0;
+        garbageBytes = 0;
+
+        for (int i = 0; i < capacity; i++) {
+            long previous = NONE;
+            long address = oldHeads.getLong(i * Long.BYTES);
+            heads.putLong(i * Long.BYTES, NONE);
+            while (address != NONE) {
+                ByteBuffer source = oldSegments.get((int) (address >>> 32));
+                int offset = (int) address;
+                int length = recordBytes(source, offset);
+                long copy = reserve(length);
+                ByteBuffer target = segment(copy);
+                target.put(offset(copy), source, offset, length);
+                target.putLong(offset(copy) + NEXT, NONE);
+
+                if (previous == NONE) {
+                    heads.putLong(i * Long.BYTES, copy);
+                } else {
+                    segment(previous).putLong(offset(previous) + NEXT, copy);
+                }
+                previous = copy;
+                address = source.getLong(offset + NEXT);
+            }
+            tails.putLong(i * Long.BYTES, previous);
+        }
+
+        release(oldHeads);
+        oldSegments.forEach(OffHeapTwoLevelHashTable::release);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segments.forEach(OffHeapTwoLevelHashTable::release);
+        segments = new ArrayList<>();
+        release(heads);
+        release(tails);
+        heads = null;
+        tails = null;
+    }
+
+    private long find(K key) {
+        checkOpen();
+        byte[] keyBytes = keyCodec.encode(key);
+        int hash = HashCipher.hashOf(hashCipher, key);
+        for (long address = heads.getLong(HashCipher.indexFor(hash, capacity) * Long.BYTES); address != NONE; address = next(address)) {
+            if (matches(address, hash, keyBytes)) {
+                return address;
+            }
+        }
+        return NONE;
+    }
+
+    private long append(int hash, byte[] keyBytes, byte[] valueBytes) {
+        int length = RECORD_HEADER_BYTES + keyBytes.length + (valueBytes == null ? 0 : valueBytes.length);
+        long address = reserve(length);
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        segment.putLong(offset + NEXT, NONE)
+                .putInt(offset + HASH, hash)
+                .putInt(offset + KEY_LENGTH, keyBytes.length)
+                .putInt(offset + VALUE_LENGTH, valueBytes == null ? -1 : valueBytes.length)
+                .put(offset + RECORD_HEADER_BYTES, keyBytes);
+        if (valueBytes != null) {
+            segment.put(offset + RECORD_HEADER_BYTES + keyBytes.length, valueBytes);
+        }
+        return address;
+    }
+
+    private long reserve(int length) {
+        if (length > segmentBytes) {
+            throw new IllegalArgumentException("Entry of " + length + " bytes does not fit a " + segmentBytes + "-byte segment");
+        }
+        if (segments.isEmpty() || writeOffset + length > segmentBytes) {
+            segments.add(ByteBuffer.allocateDirect(segmentBytes));
+            writeOffset = 0;
+        }
+        long address = ((long) (segments.size() - 1) << 32) | writeOffset;
+        writeOffset += length;
+        usedBytes += length;
+        return address;
+    }
+
+    private boolean matches(long address, int hash, byte[] keyBytes) {
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        if (segment.getInt(offset + HASH) != hash || segment.getInt(offset + KEY_LENGTH) != keyBytes.length) {
+            return false;
+        }
+        return segment.slice(offset + RECORD_HEADER_BYTES, keyBytes.length).equals(ByteBuffer.wrap(keyBytes));
+    }
+
+    private V valueAt(long address) {
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        int valueLength = segment.getInt(offset + VALUE_LENGTH);
+        return valueLength < 0 ? null
+                : valueCodec.decode(segment, offset + RECORD_HEADER_BYTES + segment.getInt(offset + KEY_LENGTH), valueLength);
+    }
+
+    private long next(long address) {
+        return segment(address).getLong(offset(address) + NEXT);
+    }
+
+    private int recordBytes(long address) {
+        return recordBytes(segment(address), offset(address));
+    }
+
+    private static int recordBytes(ByteBuffer segment, int offset) {
+        return RECORD_HEADER_BYTES + segment.getInt(offset + KEY_LENGTH) + Math.max(0, segment.getInt(offset + VALUE_LENGTH));
+    }
+
+    private ByteBuffer segment(long address) {
+        return segments.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private void resetBuckets() {
+        for (int i = 0; i < capacity; i++) {
+            heads.putLong(i * Long.BYTES, NONE);
+            tails.putLong(i * Long.BYTES, NONE);
+        }
+        writeOffset = 0;
+        usedBytes = 0;
+        garbageBytes = 0;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Table is closed");
+        }
+    }
+
+    /**
+     * Frees a direct buffer immediately through {@code sun.misc.Unsafe.invokeCleaner} when the JDK allows it;
+     * otherwise the memory is returned once the buffer is garbage collected.
+     */
+    private static void release(ByteBuffer buffer) {
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package ir.ac.kntu.twolevelhashtable.storage;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import ir.ac.kntu.twolevelhashtable.table.TableChangeListener;
+import ir.ac.kntu.twolevelhashtable.table.TwoLevelHashTable;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists a {@link TwoLevelHashTable} in Redis with one hash field per bucket: {@code <prefix>:buckets} maps
+ * a bucket index to the JSON array of that bucket's {@code [key, value]} pairs, and {@code <prefix>:meta}
+ * records the capacity. The store listens to the table it is attached to, so {@link #save} only rewrites
+ * buckets dirtied since the previous save, written through pipelines of {@value #BATCH_SIZE} commands. A full
+ * rewrite is staged under {@code <prefix>:buckets:staging} and renamed over the live hash in one transaction, so
+ * a failure part-way leaves the previously saved table in place.
+ */
+public class RedisTableStore<K, V> {
+    private static final int BATCH_SIZE = 500;
+
+    private final JedisPool pool;
+    private final ObjectMapper objectMapper;
+    private final String bucketsKey;
+    private final String stagingKey;
+    private final String metaKey;
+    private final JavaType keyType;
+    private final JavaType valueType;
+
+    private final BitSet dirtyBuckets = new BitSet();
+    private boolean fullResync = true;
+    private TwoLevelHashTable<K, V> attachedTable;
+    private final TableChangeListener listener = new TableChangeListener() {
+        @Override
+        public void bucketChanged(int index) {
+            dirtyBuckets.set(index);
+        }
+
+        @Override
+        public void tableRebuilt() {
+            fullResync = true;
+        }
+    };
+
+    public RedisTableStore(JedisPool pool, String prefix, Class<K> keyClass, Class<V> valueClass) {
+        this.pool = pool;
+        this.objectMapper = new ObjectMapper();
+        this.bucketsKey = prefix + ":buckets";
+        this.stagingKey = bucketsKey + ":staging";
+        this.metaKey = prefix + ":meta";
+        this.keyType = objectMapper.constructType(keyClass);
+        this.valueType = objectMapper.constructType(valueClass);
+    }
+
+    public void attach(TwoLevelHashTable<K, V> table) {
+        if (attachedTable != null) {
+            attachedTable.removeChangeListener(listener);
+        }
+        attachedTable = table;
+        table.addChangeListener(listener);
+        fullResync = true;
+        dirtyBuckets.clear();
+    }
+
+    /**
+     * Writes the attached table, rewriting only dirty buckets unless the table was rebuilt since the last
+     * save. Returns the number of buckets written or deleted.
+     */
+    public int save() throws IOException {
+        TwoLevelHashTable<K, V> table = attachedTable;
+        table.completeRehash();
+
+        int written = 0;
+        try (Jedis jedis = pool.getResource()) {
+            String target = fullResync ? stagingKey : bucketsKey;
+            Pipeline pipeline = jedis.pipelined();
+            int pending = 0;
+            if (fullResync) {
+                pipeline.del(stagingKey);
+                pending++;
+            }
+
+            for (int i = 0; i < table.getCapacity(); i++) {
+                if (!fullResync && !dirtyBuckets.get(i)) {
+                    continue;
+                }
+                String bucket = encodeBucket(table, i);
+                if (bucket != null) {
+                    pipeline.hset(target, String.valueOf(i), bucket);
+                    written++;
+                    pending++;
+                } else if (!fullResync) {
+                    pipeline.hdel(bucketsKey, String.valueOf(i));
+                    written++;
+                    pending++;
+                }
+                if (pending >= BATCH_SIZE) {
+                    pipeline.sync();
+                    pending = 0;
+                }
+            }
+            pipeline.sync();
+
+            Transaction transaction = jedis.multi();
+            if (fullResync) {
+                if (written > 0) {
+                    transaction.rename(stagingKey, bucketsKey);
+                } else {
+                    transaction.del(bucketsKey);
+                }
+                transaction.hset(metaKey, "capacity", String.valueOf(table.getCapacity()));
+            }
+            transaction.hset(metaKey, "size", String.valueOf(table.size()));
+            transaction.exec();
+        }
+
+        fullResync = false;
+        dirtyBuckets.clear();
+        return written;
+    }
+
+    /**
+     * Replaces the attached table's contents with what is stored in Redis, scanning the bucket hash in
+     * batches and building the table with a single bulk load. Everything is read and parsed before the table
+     * is cleared, so a failure leaves it untouched. Returns whether anything was stored.
+     */
+    public boolean load() throws IOException {
+        TwoLevelHashTable<K, V> table = attachedTable;
+        int storedCapacity;
+        List<Map.Entry<K, V>> entries = new ArrayList<>();
+        List<Integer> storedBuckets = new ArrayList<>();
+        boolean found = false;
+        try (Jedis jedis = pool.getResource()) {
+            String capacity = jedis.hget(metaKey, "capacity");
+            storedCapacity = capacity == null ? -1 : Integer.parseInt(capacity);
+
+            String cursor = ScanParams.SCAN_POINTER_START;
+            ScanParams params = new ScanParams().count(BATCH_SIZE);
+            do {
+                ScanResult<Map.Entry<String, String>> page = jedis.hscan(bucketsKey, cursor, params);
+                for (Map.Entry<String, String> bucket : page.getResult()) {
+                    int index = Integer.parseInt(bucket.getKey());
+                    for (JsonNode pair : objectMapper.readTree(bucket.getValue())) {
+                        entries.add(new AbstractMap.SimpleImmutableEntry<>(objectMapper.convertValue(pair.get(0), keyType),
+                                objectMapper.convertValue(pair.get(1), valueType)));
+                        storedBuckets.add(index);
+                    }
+                    found = true;
+                }
+                cursor = page.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        }
+
+        table.clear();
+        table.bulkLoad(entries);
+        boolean aligned = storedCapacity == table.getCapacity();
+        for (int i = 0; aligned && i < entries.size(); i++) {
+            aligned = table.bucketIndex(entries.get(i).getKey()) == storedBuckets.get(i);
+        }
+        fullResync = !aligned;
+        dirtyBuckets.clear();
+        return found;
+    }
+
+    public boolean hasPendingChanges() {
+        return fullResync || !dirtyBuckets.isEmpty();
+    }
+
+    private String encodeBucket(TwoLevelHashTable<K, V> table, int index) throws IOException {
+        ArrayNode pairs = objectMapper.createArrayNode();
+        table.forEachInBucket(index, (key, value) -> pairs.addArray()
+                .addPOJO(key)
+                .addPOJO(value));
+        return pairs.isEmpty() ? null : objectMapper.writeValueAsString(pairs);
+    }
+}
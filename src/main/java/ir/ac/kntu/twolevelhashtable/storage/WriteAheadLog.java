@@ -0,0 +1,419 @@
+package ir.ac.kntu.twolevelhashtable.storage;
+
+import ir.ac.kntu.twolevelhashtable.table.TwoLevelHashTable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Makes {@link TwoLevelHashTable} mutations durable through an append-only operation log. Every
+ * {@link #insert}/{@link #delete} is applied to the table and appended to an in-memory batch; the caller then
+ * waits until its record is on disk. The first waiter becomes the leader, writes the whole pending batch and
+ * issues a single {@code force}, so concurrent writers share one fsync (group commit).
+ *
+ * <p>The directory holds {@code snapshot-N.bin} files in the {@link MappedTwoLevelHashTable} format and
+ * {@code wal-N.log} files. Snapshot N contains every operation logged before {@code wal-N.log}, so
+ * {@link #open} restores the newest snapshot and replays the logs from its generation onwards. A torn record
+ * at the end of the last log is detected by its CRC and cut off. {@link #compact} starts a new log
+ * generation, writes the matching snapshot and deletes what it supersedes.
+ */
+public class WriteAheadLog<K, V> implements Closeable {
+    private static final byte INSERT = 1;
+    private static final byte DELETE = 2;
+
+    private final Path directory;
+    private final TwoLevelHashTable<K, V> table;
+    private final ByteCodec<K> keyCodec;
+    private final ByteCodec<V> valueCodec;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private final ByteArrayOutputStream pendingBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pending = new DataOutputStream(pendingBytes);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel log;
+    private long generation;
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean flushing;
+    private IOException failure;
+
+    private WriteAheadLog(Path directory, TwoLevelHashTable<K, V> table, ByteCodec<K> keyCodec, ByteCodec<V> valueCodec) {
+        this.directory = directory;
+        this.table = table;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * Clears {@code table}, restores it from the newest snapshot and log tail in {@code directory}, and opens
+     * the log for appending.
+     */
+    public static <K, V> WriteAheadLog<K, V> open(Path directory, TwoLevelHashTable<K, V> table,
+                                                  ByteCodec<K> keyCodec, ByteCodec<V> valueCodec) throws IOException {
+        Files.createDirectories(directory);
+        WriteAheadLog<K, V> wal = new WriteAheadLog<>(directory, table, keyCodec, valueCodec);
+        wal.recover();
+        return wal;
+    }
+
+    public void insert(K key, V value) throws IOException {
+        long seq;
+        lock.lock();
+        try {
+            checkOpen();
+            table.insert(key, value);
+            seq = append(INSERT, key, value);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(seq);
+    }
+
+    public boolean delete(K key) throws IOException {
+        long seq;
+        boolean removed;
+        lock.lock();
+        try {
+            checkOpen();
+            removed = table.delete(key);
+            seq = append(DELETE, key, null);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(seq);
+        return removed;
+    }
+
+    /**
+     * Gives every key of {@code entries} its new value as its only entry and deletes the keys in
+     * {@code deleted}, then waits once for the whole batch to become durable.
+     */
+    public void replaceAll(Map<? extends K, ? extends V> entries, Collection<? extends K> deleted) throws IOException {
+        long seq = 0;
+        lock.lock();
+        try {
+            checkOpen();
+            for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                removeAllLocked(entry.getKey());
+                table.insert(entry.getKey(), entry.getValue());
+                seq = append(INSERT, entry.getKey(), entry.getValue());
+            }
+            for (K key : deleted) {
+                seq = Math.max(seq, removeAllLocked(key));
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(seq);
+    }
+
+    public V get(K key) {
+        lock.lock();
+        try {
+            return table.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public LinkedList<V> search(K key) {
+        lock.lock();
+        try {
+            return table.search(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Folds the log into a new snapshot. Writers are held off while the snapshot is written.
+     */
+    public void compact() throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            while (flushing) {
+                flushed.awaitUninterruptibly();
+            }
+            flushPendingLocked();
+
+            long next = generation + 1;
+            FileChannel nextLog = openLog(next);
+            log.close();
+            log = nextLog;
+            long previous = generation;
+            generation = next;
+
+            Path temporary = directory.resolve("snapshot-" + next + ".tmp");
+            MappedTwoLevelHashTable.write(table, temporary, keyCodec, valueCodec);
+            Files.move(temporary, snapshotPath(next), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            for (long old : generations("snapshot-", ".bin")) {
+                if (old < next) {
+                    Files.deleteIfExists(snapshotPath(old));
+                }
+            }
+            for (long old : generations("wal-", ".log")) {
+                if (old <= previous) {
+                    Files.deleteIfExists(logPath(old));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public TwoLevelHashTable<K, V> getTable() {
+        return table;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (log == null) {
+                return;
+            }
+            while (flushing) {
+                flushed.awaitUninterruptibly();
+            }
+            flushPendingLocked();
+            log.close();
+            log = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes and logs until no entry of {@code key} is left, one record per delete so replay matches, and
+     * returns the last sequence number used.
+     */
+    private long removeAllLocked(K key) throws IOException {
+        long seq = appendedSeq;
+        while (table.containsKey(key)) {
+            table.delete(key);
+            seq = append(DELETE, key, null);
+        }
+        return seq;
+    }
+
+    private long append(byte op, K key, V value) throws IOException {
+        byte[] keyBytes = keyCodec.encode(key);
+        byte[] valueBytes = value == null ? null : valueCodec.encode(value);
+
+        crc.reset();
+        crc.update(op);
+        crc.update(keyBytes);
+        if (valueBytes != null) {
+            crc.update(valueBytes);
+        }
+
+        pending.writeByte(op);
+        pending.writeInt(keyBytes.length);
+        pending.write(keyBytes);
+        pending.writeInt(valueBytes == null ? -1 : valueBytes.length);
+        if (valueBytes != null) {
+            pending.write(valueBytes);
+        }
+        pending.writeInt((int) crc.getValue());
+        return ++appendedSeq;
+    }
+
+    private void awaitDurable(long seq) throws IOException {
+        lock.lock();
+        try {
+            while (durableSeq < seq) {
+                if (failure != null) {
+                    throw failure;
+                }
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+
+                flushing = true;
+                ByteBuffer batch = ByteBuffer.wrap(pendingBytes.toByteArray());
+                pendingBytes.reset();
+                long batchSeq = appendedSeq;
+                FileChannel channel = log;
+
+                IOException error = null;
+                lock.unlock();
+                try {
+                    while (batch.hasRemaining()) {
+                        channel.write(batch);
+                    }
+                    channel.force(false);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+
+                flushing = false;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableSeq = batchSeq;
+                }
+                flushed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushPendingLocked() throws IOException {
+        if (pendingBytes.size() > 0) {
+            ByteBuffer batch = ByteBuffer.wrap(pendingBytes.toByteArray());
+            pendingBytes.reset();
+            while (batch.hasRemaining()) {
+                log.write(batch);
+            }
+            log.force(false);
+        }
+        durableSeq = appendedSeq;
+        flushed.signalAll();
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (log == null) {
+            throw new IOException("Write-ahead log is closed");
+        }
+    }
+
+    private void recover() throws IOException {
+        table.clear();
+        List<Long> snapshots = generations("snapshot-", ".bin");
+        long snapshot = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        if (!snapshots.isEmpty()) {
+            try (MappedTwoLevelHashTable<K, V> mapped = MappedTwoLevelHashTable.open(snapshotPath(snapshot), keyCodec, valueCodec)) {
+                mapped.forEach(table::insert);
+            }
+        }
+
+        generation = snapshot;
+        for (long logGeneration : generations("wal-", ".log")) {
+            if (logGeneration >= snapshot) {
+                replay(logPath(logGeneration));
+                generation = logGeneration;
+            }
+        }
+        log = openLog(generation);
+    }
+
+    private void replay(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int valid = 0;
+            while (true) {
+                int next = replayRecord(buffer, valid);
+                if (next < 0) {
+                    break;
+                }
+                valid = next;
+            }
+            if (valid < channel.size()) {
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+    }
+
+    private int replayRecord(ByteBuffer buffer, int position) {
+        int limit = buffer.limit();
+        if (position + 1 + Integer.BYTES > limit) {
+            return -1;
+        }
+        byte op = buffer.get(position);
+        int keyLength = buffer.getInt(position + 1);
+        int keyStart = position + 1 + Integer.BYTES;
+        if (keyLength < 0 || (long) keyStart + keyLength + Integer.BYTES > limit) {
+            return -1;
+        }
+        int valueLength = buffer.getInt(keyStart + keyLength);
+        int valueStart = keyStart + keyLength + Integer.BYTES;
+        if (valueLength < -1 || (long) valueStart + Math.max(0, valueLength) + Integer.BYTES > limit) {
+            return -1;
+        }
+        int end = valueStart + Math.max(0, valueLength);
+
+        crc.reset();
+        crc.update(op);
+        crc.update(buffer.slice(keyStart, keyLength));
+        if (valueLength > 0) {
+            crc.update(buffer.slice(valueStart, valueLength));
+        }
+        if ((int) crc.getValue() != buffer.getInt(end)) {
+            return -1;
+        }
+
+        K key = keyCodec.decode(buffer, keyStart, keyLength);
+        if (op == INSERT) {
+            table.insert(key, valueLength < 0 ? null : valueCodec.decode(buffer, valueStart, valueLength));
+        } else if (op == DELETE) {
+            table.delete(key);
+        } else {
+            return -1;
+        }
+        return end + Integer.BYTES;
+    }
+
+    private FileChannel openLog(long logGeneration) throws IOException {
+        FileChannel channel = FileChannel.open(logPath(logGeneration), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        channel.force(true);
+        return channel;
+    }
+
+    private List<Long> generations(String prefix, String suffix) throws IOException {
+        List<Long> found = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .forEach(name -> {
+                        try {
+                            found.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                        } catch (NumberFormatException ignored) {
+                        }
+                    });
+        }
+        found.sort(null);
+        return found;
+    }
+
+    private Path snapshotPath(long snapshotGeneration) {
+        return directory.resolve("snapshot-" + snapshotGeneration + ".bin");
+    }
+
+    private Path logPath(long logGeneration) {
+        return directory.resolve("wal-" + logGeneration + ".log");
+    }
+}
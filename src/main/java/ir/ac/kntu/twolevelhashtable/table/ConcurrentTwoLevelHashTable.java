@@ -0,0 +1,336 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Thread-safe {@link TwoLevelHashTable}. Readers never lock: primary slots are read through an
+ * {@link AtomicReferenceArray} and secondary chains are immutable arrays replaced on every write. Writers
+ * lock only the stripe that owns their bucket, and {@link #setHashCipher} rebuilds into a fresh table
+ * while holding every stripe, then publishes it in one volatile write.
+ */
+public class ConcurrentTwoLevelHashTable<K, V> {
+    private static final int DEFAULT_STRIPES = 16;
+
+    private volatile Table<K, V> table;
+    private final ReentrantLock[] locks;
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder totalInserts = new LongAdder();
+    private final LongAdder size = new LongAdder();
+
+    public ConcurrentTwoLevelHashTable(Function<K, Integer> hashCipher, int capacity) {
+        this(hashCipher, capacity, DEFAULT_STRIPES);
+    }
+
+    public ConcurrentTwoLevelHashTable(Function<K, Integer> hashCipher, int capacity, int stripes) {
+        this.table = new Table<>(hashCipher, capacity);
+        this.locks = new ReentrantLock[Math.max(1, Math.min(stripes, capacity))];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public void setHashCipher(Function<K, Integer> newCipher) {
+        lockAll();
+        try {
+            Table<K, V> old = table;
+            Table<K, V> rebuilt = new Table<>(newCipher, old.capacity);
+            long newCollisions = 0;
+            for (int i = 0; i < old.capacity; i++) {
+                Pair<K, V> primary = old.primary.get(i);
+                if (primary != null) {
+                    newCollisions += rebuilt.place(primary);
+                }
+                for (Pair<K, V> pair : old.secondary.get(i)) {
+                    newCollisions += rebuilt.place(pair);
+                }
+            }
+
+            collisions.reset();
+            collisions.add(newCollisions);
+            totalInserts.reset();
+            totalInserts.add(size.sum());
+            table = rebuilt;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    public Function<K, Integer> getHashCipher() {
+        return table.hashCipher;
+    }
+
+    public int getCapacity() {
+        return table.capacity;
+    }
+
+    public int size() {
+        return (int) size.sum();
+    }
+
+    public void insert(K key, V value) {
+        Pair<K, V> pair = new Pair<>(key, value);
+        while (true) {
+            Table<K, V> current = table;
+            ReentrantLock lock = lockFor(current.indexFor(key));
+            lock.lock();
+            try {
+                if (current != table) {
+                    continue;
+                }
+                collisions.add(current.place(pair));
+                totalInserts.increment();
+                size.increment();
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public boolean delete(K key) {
+        return removeAll(key) > 0;
+    }
+
+    /**
+     * Removes every entry of {@code key} and returns the number removed, counted under the bucket's lock.
+     */
+    public int removeAll(K key) {
+        while (true) {
+            Table<K, V> current = table;
+            int index = current.indexFor(key);
+            ReentrantLock lock = lockFor(index);
+            lock.lock();
+            try {
+                if (current != table) {
+                    continue;
+                }
+                int removed = 0;
+                Pair<K, V> primary = current.primary.get(index);
+                if (primary != null && primary.key.equals(key)) {
+                    current.primary.set(index, null);
+                    removed++;
+                }
+
+                Pair<K, V>[] chain = current.secondary.get(index);
+                int kept = 0;
+                for (Pair<K, V> pair : chain) {
+                    if (!pair.key.equals(key)) {
+                        kept++;
+                    }
+                }
+                if (kept != chain.length) {
+                    Pair<K, V>[] remaining = Arrays.copyOf(chain, kept);
+                    int next = 0;
+                    for (Pair<K, V> pair : chain) {
+                        if (!pair.key.equals(key)) {
+                            remaining[next++] = pair;
+                        }
+                    }
+                    current.secondary.set(index, remaining);
+                    removed += chain.length - kept;
+                }
+
+                size.add(-removed);
+                return removed;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public LinkedList<V> search(K key) {
+        LinkedList<V> results = new LinkedList<>();
+        forEachValue(key, results::add);
+        return results.isEmpty() ? null : results;
+    }
+
+    public V get(K key) {
+        Table<K, V> current = table;
+        int index = current.indexFor(key);
+
+        Pair<K, V> primary = current.primary.get(index);
+        if (primary != null && primary.key.equals(key)) {
+            return primary.value;
+        }
+        for (Pair<K, V> pair : current.secondary.get(index)) {
+            if (pair.key.equals(key)) {
+                return pair.value;
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(K key) {
+        Table<K, V> current = table;
+        int index = current.indexFor(key);
+
+        Pair<K, V> primary = current.primary.get(index);
+        if (primary != null && primary.key.equals(key)) {
+            return true;
+        }
+        for (Pair<K, V> pair : current.secondary.get(index)) {
+            if (pair.key.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int forEachValue(K key, Consumer<? super V> action) {
+        Table<K, V> current = table;
+        int index = current.indexFor(key);
+        int found = 0;
+
+        Pair<K, V> primary = current.primary.get(index);
+        if (primary != null && primary.key.equals(key)) {
+            action.accept(primary.value);
+            found++;
+        }
+        for (Pair<K, V> pair : current.secondary.get(index)) {
+            if (pair.key.equals(key)) {
+                action.accept(pair.value);
+                found++;
+            }
+        }
+        return found;
+    }
+
+    public void clear() {
+        lockAll();
+        try {
+            Table<K, V> current = table;
+            table = new Table<>(current.hashCipher, current.capacity);
+            collisions.reset();
+            totalInserts.reset();
+            size.reset();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    public double getCollisionRate() {
+        long inserts = totalInserts.sum();
+        return inserts == 0 ? 0 : (double) collisions.sum() / inserts;
+    }
+
+    /**
+     * Visits every entry of the table as published when the call starts; concurrent writes may or may not
+     * be seen.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Table<K, V> current = table;
+        for (int i = 0; i < current.capacity; i++) {
+            Pair<K, V> primary = current.primary.get(i);
+            if (primary != null) {
+                action.accept(primary.key, primary.value);
+            }
+            for (Pair<K, V> pair : current.secondary.get(i)) {
+                action.accept(pair.key, pair.value);
+            }
+        }
+    }
+
+    public Map<K, V> getPrimaryTable() {
+        Table<K, V> current = table;
+        Map<K, V> primaryMap = new HashMap<>();
+        for (int i = 0; i < current.capacity; i++) {
+            Pair<K, V> pair = current.primary.get(i);
+            if (pair != null) {
+                primaryMap.put(pair.key, pair.value);
+            }
+        }
+        return primaryMap;
+    }
+
+    public Map<K, LinkedList<V>> getSecondaryTable() {
+        Table<K, V> current = table;
+        Map<K, LinkedList<V>> secondaryMap = new HashMap<>();
+        for (int i = 0; i < current.capacity; i++) {
+            Pair<K, V>[] chain = current.secondary.get(i);
+            if (chain.length > 0) {
+                LinkedList<V> values = new LinkedList<>();
+                for (Pair<K, V> pair : chain) {
+                    values.add(pair.value);
+                }
+                secondaryMap.put(chain[0].key, values);
+            }
+        }
+        return secondaryMap;
+    }
+
+    private ReentrantLock lockFor(int index) {
+        return locks[index % locks.length];
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    private static final class Table<K, V> {
+        private static final Pair<?, ?>[] EMPTY_CHAIN = new Pair<?, ?>[0];
+
+        final Function<K, Integer> hashCipher;
+        final int capacity;
+        final AtomicReferenceArray<Pair<K, V>> primary;
+        final AtomicReferenceArray<Pair<K, V>[]> secondary;
+
+        Table(Function<K, Integer> hashCipher, int capacity) {
+            this.hashCipher = hashCipher;
+            this.capacity = capacity;
+            this.primary = new AtomicReferenceArray<>(capacity);
+            this.secondary = new AtomicReferenceArray<>(capacity);
+            for (int i = 0; i < capacity; i++) {
+                secondary.set(i, (Pair<K, V>[]) EMPTY_CHAIN);
+            }
+        }
+
+        int indexFor(K key) {
+            return HashCipher.indexFor(HashCipher.hashOf(hashCipher, key), capacity);
+        }
+
+        int place(Pair<K, V> pair) {
+            int index = indexFor(pair.key);
+            if (primary.get(index) == null) {
+                primary.set(index, pair);
+                return 0;
+            }
+            Pair<K, V>[] chain = secondary.get(index);
+            Pair<K, V>[] grown = Arrays.copyOf(chain, chain.length + 1);
+            grown[chain.length] = pair;
+            secondary.set(index, grown);
+            return 1;
+        }
+    }
+
+    private static final class Pair<K, V> {
+        final K key;
+        final V value;
+
+        Pair(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + key + ", " + value + ")";
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Calls {@link TwoLevelHashTable#expireEntries()} every {@code period} on a daemon thread. The table is not
+ * thread-safe, so the sweeper holds {@code lock} while it runs and every other user of the table must hold the
+ * same lock.
+ */
+public class ExpirySweeper implements Closeable {
+    private final ScheduledExecutorService executor;
+
+    public ExpirySweeper(TwoLevelHashTable<?, ?> table, Lock lock, long period, TimeUnit unit) {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expiry-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            lock.lock();
+            try {
+                table.expireEntries();
+            } finally {
+                lock.unlock();
+            }
+        }, period, period, unit);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
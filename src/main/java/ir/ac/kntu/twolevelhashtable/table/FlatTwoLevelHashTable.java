@@ -0,0 +1,454 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * {@link TwoLevelHashTable} without per-entry objects. Primary slots are parallel key, value and hash arrays;
+ * the secondary level is chosen by {@link Layout}. Like {@link IntTwoLevelHashTable}, {@link #delete} removes
+ * every entry with the key and reports whether anything was removed.
+ */
+public class FlatTwoLevelHashTable<K, V> {
+    public enum Layout {
+        /**
+         * Each collided bucket owns one array of interleaved keys and values, grown by doubling.
+         */
+        INLINE,
+        /**
+         * All buckets share one open-addressed overflow region. Entries are kept in bucket order with
+         * Robin Hood displacement and removed by backward shifting, so a bucket's chain is one contiguous run.
+         */
+        ROBIN_HOOD
+    }
+
+    private final Layout layout;
+    private final int capacity;
+    private Function<K, Integer> hashCipher;
+    private final Object[] primaryKeys;
+    private final Object[] primaryValues;
+    private final int[] primaryHashes;
+    private final Overflow<K, V> overflow;
+    private int size;
+    private int collisions;
+    private int totalInserts;
+
+    public FlatTwoLevelHashTable(Function<K, Integer> hashCipher, int capacity) {
+        this(hashCipher, capacity, Layout.INLINE);
+    }
+
+    public FlatTwoLevelHashTable(Function<K, Integer> hashCipher, int capacity, Layout layout) {
+        this.hashCipher = hashCipher;
+        this.capacity = capacity;
+        this.layout = layout;
+        this.primaryKeys = new Object[capacity];
+        this.primaryValues = new Object[capacity];
+        this.primaryHashes = new int[capacity];
+        this.overflow = layout == Layout.INLINE ? new InlineOverflow<>(capacity) : new RobinHoodOverflow<>(capacity);
+    }
+
+    public void setHashCipher(Function<K, Integer> newCipher) {
+        List<Object> entries = new ArrayList<>(size * 2);
+        forEach((key, value) -> {
+            entries.add(key);
+            entries.add(value);
+        });
+        clear();
+        this.hashCipher = newCipher;
+        for (int i = 0; i < entries.size(); i += 2) {
+            insert((K) entries.get(i), (V) entries.get(i + 1));
+        }
+    }
+
+    public Function<K, Integer> getHashCipher() {
+        return hashCipher;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(K key, V value) {
+        totalInserts++;
+        size++;
+        int hash = HashCipher.hashOf(hashCipher, key);
+        int index = HashCipher.indexFor(hash, capacity);
+
+        if (primaryKeys[index] == null) {
+            primaryKeys[index] = key;
+            primaryValues[index] = value;
+            primaryHashes[index] = hash;
+            return;
+        }
+        collisions++;
+        overflow.add(index, hash, key, value);
+    }
+
+    public boolean delete(K key) {
+        int hash = HashCipher.hashOf(hashCipher, key);
+        int index = HashCipher.indexFor(hash, capacity);
+        int removed = 0;
+
+        if (primaryMatches(index, hash, key)) {
+            primaryKeys[index] = null;
+            primaryValues[index] = null;
+            removed++;
+        }
+        removed += overflow.remove(index, hash, key);
+        size -= removed;
+        return removed > 0;
+    }
+
+    public V get(K key) {
+        int hash = HashCipher.hashOf(hashCipher, key);
+        int index = HashCipher.indexFor(hash, capacity);
+
+        if (primaryMatches(index, hash, key)) {
+            return (V) primaryValues[index];
+        }
+        int slot = overflow.indexOf(index, hash, key);
+        return slot < 0 ? null : overflow.valueAt(index, slot);
+    }
+
+    public boolean containsKey(K key) {
+        int hash = HashCipher.hashOf(hashCipher, key);
+        int index = HashCipher.indexFor(hash, capacity);
+        return primaryMatches(index, hash, key) || overflow.indexOf(index, hash, key) >= 0;
+    }
+
+    public LinkedList<V> search(K key) {
+        int hash = HashCipher.hashOf(hashCipher, key);
+        int index = HashCipher.indexFor(hash, capacity);
+        LinkedList<V> results = new LinkedList<>();
+
+        if (primaryMatches(index, hash, key)) {
+            results.add((V) primaryValues[index]);
+        }
+        overflow.collect(index, hash, key, results);
+        return results.isEmpty() ? null : results;
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < capacity; i++) {
+            if (primaryKeys[i] != null) {
+                action.accept((K) primaryKeys[i], (V) primaryValues[i]);
+            }
+        }
+        overflow.forEach(action);
+    }
+
+    public void clear() {
+        Arrays.fill(primaryKeys, null);
+        Arrays.fill(primaryValues, null);
+        overflow.clear();
+        size = 0;
+        collisions = 0;
+        totalInserts = 0;
+    }
+
+    public double getCollisionRate() {
+        return totalInserts == 0 ? 0 : (double) collisions / totalInserts;
+    }
+
+    private boolean primaryMatches(int index, int hash, K key) {
+        return primaryKeys[index] != null && primaryHashes[index] == hash && primaryKeys[index].equals(key);
+    }
+
+    private interface Overflow<K, V> {
+        void add(int bucket, int hash, K key, V value);
+
+        /**
+         * Returns a layout-specific position of the first entry of {@code bucket} with {@code key}, or -1.
+         */
+        int indexOf(int bucket, int hash, K key);
+
+        V valueAt(int bucket, int position);
+
+        void collect(int bucket, int hash, K key, Collection<? super V> sink);
+
+        int remove(int bucket, int hash, K key);
+
+        void forEach(BiConsumer<? super K, ? super V> action);
+
+        void clear();
+    }
+
+    private static final class InlineOverflow<K, V> implements Overflow<K, V> {
+        private static final int INITIAL_CHAIN_CAPACITY = 2;
+
+        private final Object[][] chains;
+        private final int[] lengths;
+
+        InlineOverflow(int capacity) {
+            this.chains = new Object[capacity][];
+            this.lengths = new int[capacity];
+        }
+
+        @Override
+        public void add(int bucket, int hash, K key, V value) {
+            Object[] chain = chains[bucket];
+            int length = lengths[bucket];
+            if (chain == null) {
+                chain = new Object[INITIAL_CHAIN_CAPACITY * 2];
+                chains[bucket] = chain;
+            } else if (length * 2 == chain.length) {
+                chain = Arrays.copyOf(chain, chain.length * 2);
+                chains[bucket] = chain;
+            }
+            chain[length * 2] = key;
+            chain[length * 2 + 1] = value;
+            lengths[bucket] = length + 1;
+        }
+
+        @Override
+        public int indexOf(int bucket, int hash, K key) {
+            Object[] chain = chains[bucket];
+            for (int i = 0; i < lengths[bucket]; i++) {
+                if (chain[i * 2].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public V valueAt(int bucket, int position) {
+            return (V) chains[bucket][position * 2 + 1];
+        }
+
+        @Override
+        public void collect(int bucket, int hash, K key, Collection<? super V> sink) {
+            Object[] chain = chains[bucket];
+            for (int i = 0; i < lengths[bucket]; i++) {
+                if (chain[i * 2].equals(key)) {
+                    sink.add((V) chain[i * 2 + 1]);
+                }
+            }
+        }
+
+        @Override
+        public int remove(int bucket, int hash, K key) {
+            Object[] chain = chains[bucket];
+            int length = lengths[bucket];
+            int kept = 0;
+            for (int i = 0; i < length; i++) {
+                if (!chain[i * 2].equals(key)) {
+                    chain[kept * 2] = chain[i * 2];
+                    chain[kept * 2 + 1] = chain[i * 2 + 1];
+                    kept++;
+                }
+            }
+            if (kept == 0) {
+                chains[bucket] = null;
+            } else {
+                Arrays.fill(chain, kept * 2, length * 2, null);
+            }
+            lengths[bucket] = kept;
+            return length - kept;
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            for (int bucket = 0; bucket < chains.length; bucket++) {
+                Object[] chain = chains[bucket];
+                for (int i = 0; i < lengths[bucket]; i++) {
+                    action.accept((K) chain[i * 2], (V) chain[i * 2 + 1]);
+                }
+            }
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(chains, null);
+            Arrays.fill(lengths, 0);
+        }
+    }
+
+    private static final class RobinHoodOverflow<K, V> implements Overflow<K, V> {
+        private static final int MIN_REGION = 16;
+        private static final double MAX_LOAD = 0.8;
+
+        private final int bucketCount;
+        private Object[] keys;
+        private Object[] values;
+        private int[] hashes;
+        // Owning bucket + 1, so that 0 marks a free slot.
+        private int[] owners;
+        private int mask;
+        private int count;
+
+        RobinHoodOverflow(int bucketCount) {
+            this.bucketCount = bucketCount;
+            allocate(Math.max(MIN_REGION, Integer.highestOneBit(Math.max(1, bucketCount / 4)) * 2));
+        }
+
+        private void allocate(int regionSize) {
+            keys = new Object[regionSize];
+            values = new Object[regionSize];
+            hashes = new int[regionSize];
+            owners = new int[regionSize];
+            mask = regionSize - 1;
+            count = 0;
+        }
+
+        private int homeSlot(int bucket) {
+            return (int) ((long) bucket * keys.length / bucketCount);
+        }
+
+        private int distance(int slot) {
+            return (slot - homeSlot(owners[slot] - 1)) & mask;
+        }
+
+        @Override
+        public void add(int bucket, int hash, K key, V value) {
+            if (count + 1 > keys.length * MAX_LOAD) {
+                grow();
+            }
+            int slot = homeSlot(bucket);
+            for (int dist = 0; owners[slot] != 0 && distance(slot) >= dist; dist++) {
+                slot = (slot + 1) & mask;
+            }
+            int free = slot;
+            while (owners[free] != 0) {
+                free = (free + 1) & mask;
+            }
+            for (int i = free; i != slot; ) {
+                int previous = (i - 1) & mask;
+                move(previous, i);
+                i = previous;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            hashes[slot] = hash;
+            owners[slot] = bucket + 1;
+            count++;
+        }
+
+        @Override
+        public int indexOf(int bucket, int hash, K key) {
+            int slot = homeSlot(bucket);
+            for (int dist = 0; owners[slot] != 0; dist++) {
+                int existing = distance(slot);
+                if (existing < dist) {
+                    break;
+                }
+                if (matches(slot, bucket, hash, key)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        @Override
+        public V valueAt(int bucket, int position) {
+            return (V) values[position];
+        }
+
+        @Override
+        public void collect(int bucket, int hash, K key, Collection<? super V> sink) {
+            int slot = homeSlot(bucket);
+            for (int dist = 0; owners[slot] != 0; dist++) {
+                if (distance(slot) < dist) {
+                    break;
+                }
+                if (matches(slot, bucket, hash, key)) {
+                    sink.add((V) values[slot]);
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        @Override
+        public int remove(int bucket, int hash, K key) {
+            int removed = 0;
+            int slot = homeSlot(bucket);
+            for (int dist = 0; owners[slot] != 0; ) {
+                if (distance(slot) < dist) {
+                    break;
+                }
+                if (matches(slot, bucket, hash, key)) {
+                    removeAt(slot);
+                    removed++;
+                } else {
+                    slot = (slot + 1) & mask;
+                    dist++;
+                }
+            }
+            return removed;
+        }
+
+        private boolean matches(int slot, int bucket, int hash, K key) {
+            return owners[slot] == bucket + 1 && hashes[slot] == hash && keys[slot].equals(key);
+        }
+
+        private void removeAt(int slot) {
+            int next = (slot + 1) & mask;
+            while (owners[next] != 0 && distance(next) > 0) {
+                move(next, slot);
+                slot = next;
+                next = (next + 1) & mask;
+            }
+            keys[slot] = null;
+            values[slot] = null;
+            owners[slot] = 0;
+            count--;
+        }
+
+        private void move(int from, int to) {
+            keys[to] = keys[from];
+            values[to] = values[from];
+            hashes[to] = hashes[from];
+            owners[to] = owners[from];
+        }
+
+        private void grow() {
+            Object[] oldKeys = keys;
+            Object[] oldValues = values;
+            int[] oldHashes = hashes;
+            int[] oldOwners = owners;
+            allocate(oldKeys.length * 2);
+
+            // Runs never cross a free slot, so starting after one keeps every bucket's entries in order.
+            int start = 0;
+            while (oldOwners[start] != 0) {
+                start++;
+            }
+            for (int i = 1; i <= oldKeys.length; i++) {
+                int slot = (start + i) & (oldKeys.length - 1);
+                if (oldOwners[slot] != 0) {
+                    add(oldOwners[slot] - 1, oldHashes[slot], (K) oldKeys[slot], (V) oldValues[slot]);
+                }
+            }
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (owners[slot] != 0) {
+                    action.accept((K) keys[slot], (V) values[slot]);
+                }
+            }
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(keys, null);
+            Arrays.fill(values, null);
+            Arrays.fill(owners, 0);
+            count = 0;
+        }
+    }
+}
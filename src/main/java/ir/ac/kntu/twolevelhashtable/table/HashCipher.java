@@ -0,0 +1,86 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * A hash function over a key's {@code hashCode()} whose every output bit is well mixed, so a table can take
+ * its bucket by masking the low bits instead of by division. Tables call {@link #hash} directly, avoiding the
+ * boxing of {@link Function#apply}.
+ */
+public interface HashCipher<K> extends Function<K, Integer> {
+    int hash(K key);
+
+    /**
+     * Returns the same family of function under a different seed.
+     */
+    HashCipher<K> reseed(long seed);
+
+    @Override
+    default Integer apply(K key) {
+        return hash(key);
+    }
+
+    /**
+     * Reduces {@code hash} to a bucket index: the low bits for a power-of-two capacity, otherwise the
+     * non-negative remainder.
+     */
+    static int indexFor(int hash, int capacity) {
+        return (capacity & (capacity - 1)) == 0 ? hash & (capacity - 1) : Math.floorMod(hash, capacity);
+    }
+
+    static <K> int hashOf(Function<K, Integer> cipher, K key) {
+        return cipher instanceof HashCipher<K> hashCipher ? hashCipher.hash(key) : cipher.apply(key);
+    }
+
+    /**
+     * Fibonacci (multiply-shift) hashing: the high half of the product with 2^64 divided by the golden ratio.
+     */
+    static <K> HashCipher<K> fibonacci() {
+        return new SeededCipher<>(SeededCipher.Family.FIBONACCI, 0);
+    }
+
+    /**
+     * The 32-bit finalizer of MurmurHash3 applied to the seeded hash code.
+     */
+    static <K> HashCipher<K> murmur3(long seed) {
+        return new SeededCipher<>(SeededCipher.Family.MURMUR3, seed);
+    }
+
+    static <K> HashCipher<K> murmur3() {
+        return murmur3(0);
+    }
+
+    /**
+     * XXH32 of the hash code's four bytes.
+     */
+    static <K> HashCipher<K> xxHash(long seed) {
+        return new SeededCipher<>(SeededCipher.Family.XXHASH, seed);
+    }
+
+    static <K> HashCipher<K> xxHash() {
+        return xxHash(0);
+    }
+
+    /**
+     * A member of the multiply-add-shift universal family chosen by {@code seed}.
+     */
+    static <K> HashCipher<K> universal(long seed) {
+        return new SeededCipher<>(SeededCipher.Family.UNIVERSAL, seed);
+    }
+
+    static <K> HashCipher<K> universal() {
+        return universal(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Simple tabulation hashing over the hash code's four bytes, with tables filled from {@code seed}.
+     */
+    static <K> HashCipher<K> tabulation(long seed) {
+        return new TabulationCipher<>(seed);
+    }
+
+    static <K> HashCipher<K> tabulation() {
+        return tabulation(ThreadLocalRandom.current().nextLong());
+    }
+}
@@ -0,0 +1,211 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * {@link TwoLevelHashTable} specialised for {@code int} keys. Keys and values live in parallel arrays and
+ * the cipher is an {@link IntUnaryOperator}, so lookups neither box the key nor allocate.
+ */
+public class IntTwoLevelHashTable<V> {
+    private static final int INITIAL_CHAIN_CAPACITY = 2;
+
+    private int[] primaryKeys;
+    private Object[] primaryValues;
+    private boolean[] primaryUsed;
+    private int[][] secondaryKeys;
+    private Object[][] secondaryValues;
+    private int[] secondarySizes;
+    private IntUnaryOperator hashCipher;
+    private int collisions;
+    private int totalInserts;
+    private int size;
+    private final int capacity;
+
+    public IntTwoLevelHashTable(IntUnaryOperator hashCipher, int capacity) {
+        this.hashCipher = hashCipher;
+        this.capacity = capacity;
+        this.primaryKeys = new int[capacity];
+        this.primaryValues = new Object[capacity];
+        this.primaryUsed = new boolean[capacity];
+        this.secondaryKeys = new int[capacity][];
+        this.secondaryValues = new Object[capacity][];
+        this.secondarySizes = new int[capacity];
+    }
+
+    public void setHashCipher(IntUnaryOperator newCipher) {
+        int[] oldPrimaryKeys = primaryKeys;
+        Object[] oldPrimaryValues = primaryValues;
+        boolean[] oldPrimaryUsed = primaryUsed;
+        int[][] oldSecondaryKeys = secondaryKeys;
+        Object[][] oldSecondaryValues = secondaryValues;
+        int[] oldSecondarySizes = secondarySizes;
+
+        this.hashCipher = newCipher;
+        this.primaryKeys = new int[capacity];
+        this.primaryValues = new Object[capacity];
+        this.primaryUsed = new boolean[capacity];
+        this.secondaryKeys = new int[capacity][];
+        this.secondaryValues = new Object[capacity][];
+        this.secondarySizes = new int[capacity];
+        collisions = 0;
+        totalInserts = 0;
+        size = 0;
+
+        for (int i = 0; i < capacity; i++) {
+            if (oldPrimaryUsed[i]) {
+                insert(oldPrimaryKeys[i], (V) oldPrimaryValues[i]);
+            }
+            for (int j = 0; j < oldSecondarySizes[i]; j++) {
+                insert(oldSecondaryKeys[i][j], (V) oldSecondaryValues[i][j]);
+            }
+        }
+    }
+
+    public IntUnaryOperator getHashCipher() {
+        return hashCipher;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(int key, V value) {
+        totalInserts++;
+        size++;
+        int index = indexFor(key);
+
+        if (!primaryUsed[index]) {
+            primaryKeys[index] = key;
+            primaryValues[index] = value;
+            primaryUsed[index] = true;
+            return;
+        }
+
+        collisions++;
+        int chainSize = secondarySizes[index];
+        if (secondaryKeys[index] == null) {
+            secondaryKeys[index] = new int[INITIAL_CHAIN_CAPACITY];
+            secondaryValues[index] = new Object[INITIAL_CHAIN_CAPACITY];
+        } else if (chainSize == secondaryKeys[index].length) {
+            secondaryKeys[index] = Arrays.copyOf(secondaryKeys[index], chainSize * 2);
+            secondaryValues[index] = Arrays.copyOf(secondaryValues[index], chainSize * 2);
+        }
+        secondaryKeys[index][chainSize] = key;
+        secondaryValues[index][chainSize] = value;
+        secondarySizes[index] = chainSize + 1;
+    }
+
+    public boolean delete(int key) {
+        int index = indexFor(key);
+        boolean removed = false;
+
+        if (primaryUsed[index] && primaryKeys[index] == key) {
+            primaryUsed[index] = false;
+            primaryValues[index] = null;
+            size--;
+            removed = true;
+        }
+
+        int[] keys = secondaryKeys[index];
+        Object[] values = secondaryValues[index];
+        int chainSize = secondarySizes[index];
+        int kept = 0;
+        for (int i = 0; i < chainSize; i++) {
+            if (keys[i] != key) {
+                keys[kept] = keys[i];
+                values[kept] = values[i];
+                kept++;
+            }
+        }
+        if (kept != chainSize) {
+            for (int i = kept; i < chainSize; i++) {
+                values[i] = null;
+            }
+            size -= chainSize - kept;
+            secondarySizes[index] = kept;
+            removed = true;
+            if (kept == 0) {
+                secondaryKeys[index] = null;
+                secondaryValues[index] = null;
+            }
+        }
+        return removed;
+    }
+
+    public V get(int key) {
+        int index = indexFor(key);
+
+        if (primaryUsed[index] && primaryKeys[index] == key) {
+            return (V) primaryValues[index];
+        }
+
+        int[] keys = secondaryKeys[index];
+        for (int i = 0; i < secondarySizes[index]; i++) {
+            if (keys[i] == key) {
+                return (V) secondaryValues[index][i];
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        int index = indexFor(key);
+
+        if (primaryUsed[index] && primaryKeys[index] == key) {
+            return true;
+        }
+
+        int[] keys = secondaryKeys[index];
+        for (int i = 0; i < secondarySizes[index]; i++) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int indexFor(int key) {
+        return Math.floorMod(hashCipher.applyAsInt(key), capacity);
+    }
+
+    public void clear() {
+        for (int i = 0; i < capacity; i++) {
+            primaryUsed[i] = false;
+            primaryValues[i] = null;
+            secondaryKeys[i] = null;
+            secondaryValues[i] = null;
+            secondarySizes[i] = 0;
+        }
+        collisions = 0;
+        totalInserts = 0;
+        size = 0;
+    }
+
+    public double getCollisionRate() {
+        return totalInserts == 0 ? 0 : (double) collisions / totalInserts;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Primary Table: [");
+        for (int i = 0; i < capacity; i++) {
+            builder.append(i == 0 ? "" : ", ");
+            builder.append(primaryUsed[i] ? "(" + primaryKeys[i] + ", " + primaryValues[i] + ")" : "null");
+        }
+        builder.append("]\nSecondary Table: [");
+        for (int i = 0; i < capacity; i++) {
+            builder.append(i == 0 ? "[" : ", [");
+            for (int j = 0; j < secondarySizes[i]; j++) {
+                builder.append(j == 0 ? "" : ", ").append("(").append(secondaryKeys[i][j]).append(", ")
+                        .append(secondaryValues[i][j]).append(")");
+            }
+            builder.append("]");
+        }
+        return builder.append("]").toString();
+    }
+}
@@ -0,0 +1,100 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size log-linear histogram of nanosecond latencies in the spirit of HdrHistogram: every power of two
+ * is split into {@value #SUB_BUCKETS} linear sub-buckets, so recording is a couple of shifts and an array
+ * increment and percentiles are accurate to about three percent.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts;
+    private long totalCount;
+    private long totalNanos;
+    private long maxNanos;
+
+    public LatencyHistogram() {
+        this.counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    }
+
+    private LatencyHistogram(LatencyHistogram source) {
+        this.counts = source.counts.clone();
+        this.totalCount = source.totalCount;
+        this.totalNanos = source.totalNanos;
+        this.maxNanos = source.maxNanos;
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[indexFor(value)]++;
+        totalCount++;
+        totalNanos += value;
+        maxNanos = Math.max(maxNanos, value);
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanNanos() {
+        return totalCount == 0 ? 0 : (double) totalNanos / totalCount;
+    }
+
+    public long getPercentileNanos(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(maxNanos, highestValueAt(i));
+            }
+        }
+        return maxNanos;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    public LatencyHistogram copy() {
+        return new LatencyHistogram(this);
+    }
+
+    private static int indexFor(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long lowest = (1L << exponent) | (subBucket << (exponent - SUB_BUCKET_BITS));
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + totalCount + ", mean=" + Math.round(getMeanNanos()) + "ns, p50=" + getPercentileNanos(50)
+                + "ns, p99=" + getPercentileNanos(99) + "ns, max=" + maxNanos + "ns";
+    }
+}
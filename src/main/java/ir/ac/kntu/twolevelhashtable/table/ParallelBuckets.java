@@ -0,0 +1,88 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Splits an index range into fork/join tasks of at most {@value #THRESHOLD} indexes. A {@code null} pool runs
+ * the whole range as a single task on the calling thread.
+ */
+final class ParallelBuckets {
+    static final int THRESHOLD = 2048;
+
+    interface RangeAction {
+        void run(int from, int to);
+    }
+
+    interface RangeFunction<R> {
+        R apply(int from, int to);
+    }
+
+    private ParallelBuckets() {
+    }
+
+    static void forRange(ForkJoinPool pool, int from, int to, RangeAction action) {
+        if (pool == null || to - from <= THRESHOLD) {
+            action.run(from, to);
+        } else {
+            pool.invoke(new ActionTask(from, to, action));
+        }
+    }
+
+    static <R> R reduceRange(ForkJoinPool pool, int from, int to, RangeFunction<R> leaf, BinaryOperator<R> combine) {
+        if (pool == null || to - from <= THRESHOLD) {
+            return leaf.apply(from, to);
+        }
+        return pool.invoke(new ReduceTask<>(from, to, leaf, combine));
+    }
+
+    private static class ActionTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final RangeAction action;
+
+        ActionTask(int from, int to, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                action.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ActionTask(from, middle, action), new ActionTask(middle, to, action));
+        }
+    }
+
+    private static class ReduceTask<R> extends RecursiveTask<R> {
+        private final int from;
+        private final int to;
+        private final RangeFunction<R> leaf;
+        private final BinaryOperator<R> combine;
+
+        ReduceTask(int from, int to, RangeFunction<R> leaf, BinaryOperator<R> combine) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.combine = combine;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= THRESHOLD) {
+                return leaf.apply(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ReduceTask<R> left = new ReduceTask<>(from, middle, leaf, combine);
+            left.fork();
+            R right = new ReduceTask<>(middle, to, leaf, combine).compute();
+            return combine.apply(left.join(), right);
+        }
+    }
+}
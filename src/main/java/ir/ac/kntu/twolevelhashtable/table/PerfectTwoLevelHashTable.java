@@ -0,0 +1,256 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Static two-level table in the style of Fredman, Komlós and Szemerédi. The primary level splits the keys
+ * into {@code n} buckets with a universal hash; every bucket holding {@code n_i} keys gets a private
+ * secondary hash into {@code n_i * n_i} slots, redrawn until it is collision-free. A lookup therefore costs
+ * exactly two probes. The table is built once and cannot be modified afterwards.
+ *
+ * <p>Both levels hash the full 32-bit cipher output modulo the Mersenne prime 2^61 - 1, so keys are separable
+ * exactly when their cipher outputs differ. Keys sharing an output, such as {@code "Aa"} and {@code "BB"} under
+ * {@code hashCode()}, are placed as one group and share a slot, which holds them in a small side chain searched
+ * by {@code equals}. Each draw succeeds with probability at least one half, and a level gives up after
+ * {@value #MAX_ATTEMPTS} failed draws.
+ */
+public class PerfectTwoLevelHashTable<K, V> {
+    private static final long PRIME = (1L << 61) - 1;
+    private static final int MAX_ATTEMPTS = 64;
+
+    private final Function<K, Integer> hashCipher;
+    private final Random random;
+    private final int capacity;
+    private final int size;
+
+    private long primaryA;
+    private long primaryB;
+    private final long[] secondaryA;
+    private final long[] secondaryB;
+    private final int[] secondaryOffset;
+    private final int[] secondaryLength;
+    private final Object[] keys;
+    private final Object[] values;
+
+    public PerfectTwoLevelHashTable(Map<K, V> entries) {
+        this(Object::hashCode, entries, new Random());
+    }
+
+    public PerfectTwoLevelHashTable(Function<K, Integer> hashCipher, Map<K, V> entries) {
+        this(hashCipher, entries, new Random());
+    }
+
+    public PerfectTwoLevelHashTable(Function<K, Integer> hashCipher, Map<K, V> entries, Random random) {
+        this.hashCipher = hashCipher;
+        this.random = random;
+        this.size = entries.size();
+
+        List<List<Map.Entry<K, V>>> groups = groupByFingerprint(entries);
+        this.capacity = Math.max(1, groups.size());
+        this.secondaryA = new long[capacity];
+        this.secondaryB = new long[capacity];
+        this.secondaryOffset = new int[capacity];
+        this.secondaryLength = new int[capacity];
+
+        List<List<List<Map.Entry<K, V>>>> buckets = choosePrimaryHash(groups);
+
+        int totalSlots = 0;
+        for (int i = 0; i < capacity; i++) {
+            int bucketSize = buckets.get(i).size();
+            secondaryOffset[i] = totalSlots;
+            secondaryLength[i] = bucketSize * bucketSize;
+            totalSlots += secondaryLength[i];
+        }
+        this.keys = new Object[totalSlots];
+        this.values = new Object[totalSlots];
+
+        for (int i = 0; i < capacity; i++) {
+            buildSecondary(i, buckets.get(i));
+        }
+    }
+
+    private List<List<Map.Entry<K, V>>> groupByFingerprint(Map<K, V> entries) {
+        Map<Long, List<Map.Entry<K, V>>> groups = new LinkedHashMap<>(entries.size() * 2);
+        for (Map.Entry<K, V> entry : entries.entrySet()) {
+            groups.computeIfAbsent(fingerprint(entry.getKey()), fingerprint -> new ArrayList<>(1)).add(entry);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private List<List<List<Map.Entry<K, V>>>> choosePrimaryHash(List<List<Map.Entry<K, V>>> groups) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            primaryA = randomMultiplier();
+            primaryB = randomOffset();
+
+            List<List<List<Map.Entry<K, V>>>> buckets = new ArrayList<>(capacity);
+            for (int i = 0; i < capacity; i++) {
+                buckets.add(new ArrayList<>());
+            }
+            for (List<Map.Entry<K, V>> group : groups) {
+                buckets.get(universal(primaryA, primaryB, fingerprintOf(group), capacity)).add(group);
+            }
+
+            long squares = 0;
+            for (List<List<Map.Entry<K, V>>> bucket : buckets) {
+                squares += (long) bucket.size() * bucket.size();
+            }
+            if (squares <= 4L * capacity) {
+                return buckets;
+            }
+        }
+        throw new IllegalArgumentException("No primary hash spread " + groups.size() + " hash values within "
+                + MAX_ATTEMPTS + " attempts");
+    }
+
+    private void buildSecondary(int bucket, List<List<Map.Entry<K, V>>> groups) {
+        if (groups.isEmpty()) {
+            return;
+        }
+
+        int offset = secondaryOffset[bucket];
+        int length = secondaryLength[bucket];
+        boolean placed = false;
+        for (int attempt = 0; !placed; attempt++) {
+            if (attempt == MAX_ATTEMPTS) {
+                throw new IllegalArgumentException("No secondary hash separated the " + groups.size()
+                        + " hash values of bucket " + bucket + " within " + MAX_ATTEMPTS + " attempts");
+            }
+            secondaryA[bucket] = randomMultiplier();
+            secondaryB[bucket] = randomOffset();
+            for (int i = offset; i < offset + length; i++) {
+                keys[i] = null;
+            }
+
+            placed = true;
+            for (List<Map.Entry<K, V>> group : groups) {
+                int slot = offset + universal(secondaryA[bucket], secondaryB[bucket], fingerprintOf(group), length);
+                if (keys[slot] != null) {
+                    placed = false;
+                    break;
+                }
+                place(slot, group);
+            }
+        }
+    }
+
+    private void place(int slot, List<Map.Entry<K, V>> group) {
+        if (group.size() == 1) {
+            keys[slot] = group.get(0).getKey();
+            values[slot] = group.get(0).getValue();
+            return;
+        }
+        Object[] chainKeys = new Object[group.size()];
+        Object[] chainValues = new Object[group.size()];
+        for (int i = 0; i < chainKeys.length; i++) {
+            chainKeys[i] = group.get(i).getKey();
+            chainValues[i] = group.get(i).getValue();
+        }
+        keys[slot] = new SideChain(chainKeys);
+        values[slot] = chainValues;
+    }
+
+    private long randomMultiplier() {
+        return 1 + Math.floorMod(random.nextLong(), PRIME - 1);
+    }
+
+    private long randomOffset() {
+        return Math.floorMod(random.nextLong(), PRIME);
+    }
+
+    private long fingerprintOf(List<Map.Entry<K, V>> group) {
+        return fingerprint(group.get(0).getKey());
+    }
+
+    private long fingerprint(K key) {
+        return hashCipher.apply(key) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Computes {@code ((a * x + b) mod PRIME) mod range} for {@code a, b < 2^61} and {@code x < 2^32}, folding
+     * the 93-bit product with {@code 2^61 = 1 (mod PRIME)}.
+     */
+    private static int universal(long a, long b, long x, int range) {
+        long low = a * x;
+        long high = Math.multiplyHigh(a, x);
+        long folded = (low & PRIME) + (low >>> 61) + (high << 3) + b;
+        folded = (folded & PRIME) + (folded >>> 61);
+        if (folded >= PRIME) {
+            folded -= PRIME;
+        }
+        return (int) (folded % range);
+    }
+
+    public V get(K key) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        if (keys[slot] instanceof SideChain chain) {
+            int position = chain.indexOf(key);
+            return position < 0 ? null : (V) ((Object[]) values[slot])[position];
+        }
+        return (V) values[slot];
+    }
+
+    public boolean containsKey(K key) {
+        int slot = slotOf(key);
+        return slot >= 0 && (!(keys[slot] instanceof SideChain chain) || chain.indexOf(key) >= 0);
+    }
+
+    /**
+     * Returns the slot reserved for {@code key}'s hash value if it holds {@code key} or a side chain, else -1.
+     */
+    private int slotOf(K key) {
+        long x = fingerprint(key);
+        int bucket = universal(primaryA, primaryB, x, capacity);
+        int length = secondaryLength[bucket];
+        if (length == 0) {
+            return -1;
+        }
+
+        int slot = secondaryOffset[bucket] + universal(secondaryA[bucket], secondaryB[bucket], x, length);
+        return keys[slot] instanceof SideChain || key.equals(keys[slot]) ? slot : -1;
+    }
+
+    public Function<K, Integer> getHashCipher() {
+        return hashCipher;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSecondaryCapacity() {
+        return keys.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The keys of a slot shared by several keys with the same hash value; their values sit at the same positions
+     * of an {@code Object[]} in the slot's value cell.
+     */
+    private static final class SideChain {
+        final Object[] keys;
+
+        SideChain(Object[] keys) {
+            this.keys = keys;
+        }
+
+        int indexOf(Object key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (key.equals(keys[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+final class SeededCipher<K> implements HashCipher<K> {
+    enum Family {
+        FIBONACCI, MURMUR3, XXHASH, UNIVERSAL
+    }
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final int PRIME32_2 = 0x85EBCA77;
+    private static final int PRIME32_3 = 0xC2B2AE3D;
+    private static final int PRIME32_4 = 0x27D4EB2F;
+    private static final int PRIME32_5 = 0x165667B1;
+
+    private final Family family;
+    private final long seed;
+    private final long multiplier;
+    private final long increment;
+
+    SeededCipher(Family family, long seed) {
+        this.family = family;
+        this.seed = seed;
+        SplittableRandom random = new SplittableRandom(seed);
+        this.multiplier = random.nextLong() | 1;
+        this.increment = random.nextLong();
+    }
+
+    @Override
+    public int hash(K key) {
+        int h = Objects.hashCode(key);
+        switch (family) {
+            case FIBONACCI:
+                return (int) (((h ^ seed) * GOLDEN_GAMMA) >>> 32);
+            case MURMUR3:
+                h ^= (int) seed ^ (int) (seed >>> 32);
+                h ^= h >>> 16;
+                h *= 0x85EBCA6B;
+                h ^= h >>> 13;
+                h *= 0xC2B2AE35;
+                return h ^ (h >>> 16);
+            case XXHASH:
+                int x = (int) seed + PRIME32_5 + Integer.BYTES;
+                x = Integer.rotateLeft(x + h * PRIME32_3, 17) * PRIME32_4;
+                x ^= x >>> 15;
+                x *= PRIME32_2;
+                x ^= x >>> 13;
+                x *= PRIME32_3;
+                return x ^ (x >>> 16);
+            default:
+                return (int) ((multiplier * (h & 0xFFFFFFFFL) + increment) >>> 32);
+        }
+    }
+
+    @Override
+    public HashCipher<K> reseed(long seed) {
+        return new SeededCipher<>(family, seed);
+    }
+
+    @Override
+    public String toString() {
+        return family + "(" + seed + ")";
+    }
+}
@@ -0,0 +1,17 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+/**
+ * Receives bucket-level change notifications from a {@link TwoLevelHashTable}, on the thread that mutated it.
+ */
+public interface TableChangeListener {
+    /**
+     * Bucket {@code index} of the current generation gained or lost entries.
+     */
+    void bucketChanged(int index);
+
+    /**
+     * The table was cleared, resized or given a new cipher, so previously reported bucket indices no longer
+     * hold.
+     */
+    void tableRebuilt();
+}
@@ -0,0 +1,108 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+/**
+ * Point-in-time statistics of a {@link TwoLevelHashTable}, produced by {@link TwoLevelHashTable#getMetrics()}.
+ * Unlike {@link TwoLevelHashTable#getCollisionRate()}, every figure here reflects the live contents,
+ * including after deletes.
+ */
+public class TableMetrics {
+    private final int size;
+    private final int capacity;
+    private final int overflowEntries;
+    private final int[] chainLengthHistogram;
+    private final long successfulSearches;
+    private final long successfulProbes;
+    private final long unsuccessfulSearches;
+    private final long unsuccessfulProbes;
+    private final LatencyHistogram insertLatency;
+    private final LatencyHistogram deleteLatency;
+    private final LatencyHistogram searchLatency;
+
+    TableMetrics(int size, int capacity, int overflowEntries, int[] chainLengthHistogram,
+                 long successfulSearches, long successfulProbes, long unsuccessfulSearches, long unsuccessfulProbes,
+                 LatencyHistogram insertLatency, LatencyHistogram deleteLatency, LatencyHistogram searchLatency) {
+        this.size = size;
+        this.capacity = capacity;
+        this.overflowEntries = overflowEntries;
+        this.chainLengthHistogram = chainLengthHistogram;
+        this.successfulSearches = successfulSearches;
+        this.successfulProbes = successfulProbes;
+        this.unsuccessfulSearches = unsuccessfulSearches;
+        this.unsuccessfulProbes = unsuccessfulProbes;
+        this.insertLatency = insertLatency;
+        this.deleteLatency = deleteLatency;
+        this.searchLatency = searchLatency;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public double getLoadFactor() {
+        return capacity == 0 ? 0 : (double) size / capacity;
+    }
+
+    /**
+     * Number of entries living in secondary chains rather than in their bucket's primary slot.
+     */
+    public int getOverflowEntries() {
+        return overflowEntries;
+    }
+
+    public double getOverflowRate() {
+        return size == 0 ? 0 : (double) overflowEntries / size;
+    }
+
+    /**
+     * Element {@code i} is the number of buckets whose secondary chain holds exactly {@code i} entries.
+     */
+    public int[] getChainLengthHistogram() {
+        return chainLengthHistogram.clone();
+    }
+
+    public int getMaxChainLength() {
+        return chainLengthHistogram.length - 1;
+    }
+
+    public double getAverageSuccessfulProbes() {
+        return successfulSearches == 0 ? 0 : (double) successfulProbes / successfulSearches;
+    }
+
+    public double getAverageUnsuccessfulProbes() {
+        return unsuccessfulSearches == 0 ? 0 : (double) unsuccessfulProbes / unsuccessfulSearches;
+    }
+
+    public long getSuccessfulSearches() {
+        return successfulSearches;
+    }
+
+    public long getUnsuccessfulSearches() {
+        return unsuccessfulSearches;
+    }
+
+    /**
+     * Latency histograms are only populated while {@link TwoLevelHashTable#setLatencyTracking} is on.
+     */
+    public LatencyHistogram getInsertLatency() {
+        return insertLatency;
+    }
+
+    public LatencyHistogram getDeleteLatency() {
+        return deleteLatency;
+    }
+
+    public LatencyHistogram getSearchLatency() {
+        return searchLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size + ", capacity=" + capacity + ", loadFactor=" + getLoadFactor()
+                + ", overflowEntries=" + overflowEntries + ", maxChain=" + getMaxChainLength()
+                + ", avgProbesHit=" + getAverageSuccessfulProbes() + ", avgProbesMiss=" + getAverageUnsuccessfulProbes();
+    }
+}
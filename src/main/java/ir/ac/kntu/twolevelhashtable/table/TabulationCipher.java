@@ -0,0 +1,35 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+final class TabulationCipher<K> implements HashCipher<K> {
+    private final long seed;
+    private final int[][] tables = new int[Integer.BYTES][256];
+
+    TabulationCipher(long seed) {
+        this.seed = seed;
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int[] table : tables) {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = random.nextInt();
+            }
+        }
+    }
+
+    @Override
+    public int hash(K key) {
+        int h = Objects.hashCode(key);
+        return tables[0][h & 0xFF] ^ tables[1][(h >>> 8) & 0xFF] ^ tables[2][(h >>> 16) & 0xFF] ^ tables[3][h >>> 24];
+    }
+
+    @Override
+    public HashCipher<K> reseed(long seed) {
+        return new TabulationCipher<>(seed);
+    }
+
+    @Override
+    public String toString() {
+        return "TABULATION(" + seed + ")";
+    }
+}
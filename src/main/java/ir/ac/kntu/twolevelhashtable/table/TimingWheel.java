@@ -0,0 +1,105 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel of {@value #LEVELS} levels with {@value #SLOTS} slots each; a slot on level
+ * {@code l} spans {@code SLOTS^l} ticks. An item is filed on the lowest level whose range covers its distance
+ * from the current tick and drops a level each time the wheel above turns to its slot, so advancing costs O(1)
+ * per tick plus O(1) per item per level, without scanning pending items. Items further out than the top level
+ * wait in an overflow list that is refiled whenever the top level turns.
+ */
+final class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    private final List<Timer<T>>[][] wheels = new List[LEVELS][SLOTS];
+    private List<Timer<T>> overflow = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    /**
+     * Files {@code item} to come due at tick {@code deadline}, or on the next tick if that has already passed.
+     */
+    void schedule(T item, long deadline) {
+        file(new Timer<>(item, Math.max(deadline, currentTick + 1)));
+        size++;
+    }
+
+    /**
+     * Turns the wheel up to {@code tick}, handing every item that comes due on the way to {@code expired}.
+     */
+    void advanceTo(long tick, Consumer<? super T> expired) {
+        while (currentTick < tick) {
+            if (size == 0) {
+                currentTick = tick;
+                return;
+            }
+            currentTick++;
+
+            int top = 0;
+            while (top < LEVELS - 1 && (currentTick & ((1L << (SLOT_BITS * (top + 1))) - 1)) == 0) {
+                top++;
+            }
+            for (int level = top; level > 0; level--) {
+                for (Timer<T> timer : detach(level, slotOf(currentTick, level))) {
+                    file(timer);
+                }
+            }
+            if (top == LEVELS - 1) {
+                List<Timer<T>> distant = overflow;
+                overflow = new ArrayList<>();
+                for (Timer<T> timer : distant) {
+                    file(timer);
+                }
+            }
+
+            for (Timer<T> timer : detach(0, slotOf(currentTick, 0))) {
+                size--;
+                expired.accept(timer.item);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void file(Timer<T> timer) {
+        long distance = timer.deadline - currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            if (distance < 1L << (SLOT_BITS * (level + 1))) {
+                int slot = slotOf(timer.deadline, level);
+                if (wheels[level][slot] == null) {
+                    wheels[level][slot] = new ArrayList<>();
+                }
+                wheels[level][slot].add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+
+    private List<Timer<T>> detach(int level, int slot) {
+        List<Timer<T>> timers = wheels[level][slot];
+        wheels[level][slot] = null;
+        return timers == null ? List.of() : timers;
+    }
+
+    private static int slotOf(long tick, int level) {
+        return (int) (tick >>> (SLOT_BITS * level)) & (SLOTS - 1);
+    }
+
+    private static final class Timer<T> {
+        final T item;
+        final long deadline;
+
+        Timer(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+    }
+}
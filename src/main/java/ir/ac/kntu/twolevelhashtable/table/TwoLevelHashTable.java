@@ -1,21 +1,100 @@
 package ir.ac.kntu.twolevelhashtable.table;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class TwoLevelHashTable<K, V> implements Iterable<Map.Entry<K, V>> {
+    private static final int REHASH_STEP = 4;
+    private static final long EXPIRY_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int JSON_CHUNK_SIZE = 4096;
 
-public class TwoLevelHashTable<K, V> {
     private Object[] primaryTable;
     private Object[] secondaryTable;
     private Function<K, Integer> hashCipher;
     private int collisions;
     private int totalInserts;
     private int capacity;
+    private int size;
+    private int overflowBuckets;
+
+    private final int minCapacity;
+    private final double maxLoadFactor;
+    private final double minLoadFactor;
+
+    private Object[] oldPrimaryTable;
+    private Object[] oldSecondaryTable;
+    private Function<K, Integer> oldHashCipher;
+    private int oldCapacity;
+    private int rehashIndex = -1;
+
+    private long probes;
+    private long successfulSearches;
+    private long successfulProbes;
+    private long unsuccessfulSearches;
+    private long unsuccessfulProbes;
+    private boolean latencyTracking;
+    private final LatencyHistogram insertLatency = new LatencyHistogram();
+    private final LatencyHistogram deleteLatency = new LatencyHistogram();
+    private final LatencyHistogram searchLatency = new LatencyHistogram();
+
+    private final List<TableChangeListener> changeListeners = new ArrayList<>();
+
+    private int maxChainLength;
+    private int maxReseeds;
+    private int reseeds;
+
+    // Expiry times are nanoseconds since expiryEpoch, the clock reading at the first insert with a TTL. The wheel
+    // keeps each expiring entry until its deadline, even if it was deleted or the table cleared before then.
+    private LongSupplier clock = System::nanoTime;
+    private TimingWheel<Pair<K, V>> expirations;
+    private long expiryEpoch;
+    private long expiredEntries;
 
     public TwoLevelHashTable(Function<K, Integer> hashCipher, int capacity) {
+        this(hashCipher, capacity, 0, 0);
+    }
+
+    /**
+     * Creates a table that grows once {@code size / capacity} exceeds {@code maxLoadFactor} and shrinks
+     * (never below the initial capacity) once it drops under {@code minLoadFactor}. Buckets are migrated
+     * a few at a time on each insert and delete. A non-positive factor disables that direction.
+     */
+    public TwoLevelHashTable(Function<K, Integer> hashCipher, int capacity, double maxLoadFactor, double minLoadFactor) {
         this.hashCipher = hashCipher;
         this.capacity = capacity;
+        this.minCapacity = capacity;
+        this.maxLoadFactor = maxLoadFactor;
+        this.minLoadFactor = minLoadFactor;
         this.primaryTable = new Object[capacity];
         this.secondaryTable = new Object[capacity];
         this.collisions = 0;
@@ -23,23 +102,238 @@ public class TwoLevelHashTable<K, V> {
     }
 
     public void setHashCipher(Function<K, Integer> newCipher) {
+        setHashCipher(newCipher, null);
+    }
+
+    /**
+     * Rebuilds the table under {@code newCipher}, hashing and bucketing on {@code pool}; the cipher must then
+     * be thread-safe. A {@code null} pool rebuilds on the calling thread.
+     */
+    public void setHashCipher(Function<K, Integer> newCipher, ForkJoinPool pool) {
+        completeRehash();
+        List<Pair<K, V>> pairs = currentPairs(0);
+        clear(pool);
         this.hashCipher = newCipher;
-        Object[] oldPrimary = primaryTable.clone();
-        Object[] oldSecondary = secondaryTable.clone();
-        clear();
+        build(pairs, 0, capacity, pool);
+    }
+
+    /**
+     * Creates a table holding {@code entries}, presized and built by {@link #bulkLoad(Iterable)}.
+     */
+    public static <K, V> TwoLevelHashTable<K, V> fromEntries(Function<K, Integer> hashCipher, int capacity,
+                                                            Iterable<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        TwoLevelHashTable<K, V> table = new TwoLevelHashTable<>(hashCipher, capacity);
+        table.bulkLoad(entries);
+        return table;
+    }
+
+    public void bulkLoad(Iterable<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        bulkLoad(entries, null);
+    }
+
+    public void bulkLoad(Iterable<? extends Map.Entry<? extends K, ? extends V>> entries, boolean parallel) {
+        bulkLoad(entries, parallel ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Adds all {@code entries} at once instead of inserting them one by one: bucket sizes are counted first,
+     * then every bucket is built with an exactly sized chain, growing the capacity up front if the load factor
+     * requires it. Existing entries keep their place ahead of the new ones, and expired ones are dropped. With a
+     * {@code pool}, hashing and bucket construction are split across it, so the cipher must be thread-safe.
+     */
+    public void bulkLoad(Iterable<? extends Map.Entry<? extends K, ? extends V>> entries, ForkJoinPool pool) {
+        List<Pair<K, V>> added = new ArrayList<>();
+        for (Map.Entry<? extends K, ? extends V> entry : entries) {
+            added.add(new Pair<>(entry.getKey(), entry.getValue()));
+        }
+        bulkLoadPairs(added, pool);
+    }
+
+    private void bulkLoadPairs(List<Pair<K, V>> added, ForkJoinPool pool) {
+        completeRehash();
+        List<Pair<K, V>> pairs = currentPairs(added.size());
+        int existing = pairs.size();
+        boolean expired = existing < size;
+        pairs.addAll(added);
+
+        int newCapacity = capacity;
+        if (maxLoadFactor > 0) {
+            while (pairs.size() > newCapacity * maxLoadFactor) {
+                newCapacity *= 2;
+            }
+        }
+        build(pairs, existing, newCapacity, pool);
+        if (expired) {
+            updateCollisions();
+        }
+    }
 
+    /**
+     * Collects the entries of the current generation in bucket order, leaving out and counting expired ones.
+     */
+    private List<Pair<K, V>> currentPairs(int extra) {
+        long elapsed = expiryElapsed();
+        List<Pair<K, V>> pairs = new ArrayList<>(size + extra);
         for (int i = 0; i < capacity; i++) {
-            if (oldPrimary[i] != null) {
-                Pair<K, V> pair = (Pair<K, V>) oldPrimary[i];
-                insert(pair.key, pair.value);
+            if (primaryTable[i] != null) {
+                addLive(pairs, (Pair<K, V>) primaryTable[i], elapsed);
             }
-            if (oldSecondary[i] != null) {
-                LinkedList<Pair<K, V>> list = (LinkedList<Pair<K, V>>) oldSecondary[i];
-                for (Pair<K, V> pair : list) {
-                    insert(pair.key, pair.value);
+            if (secondaryTable[i] != null) {
+                for (Pair<K, V> pair : (ArrayList<Pair<K, V>>) secondaryTable[i]) {
+                    addLive(pairs, pair, elapsed);
                 }
             }
         }
+        return pairs;
+    }
+
+    private void addLive(List<Pair<K, V>> pairs, Pair<K, V> pair, long elapsed) {
+        if (pair.isExpired(elapsed)) {
+            expiredEntries++;
+        } else {
+            pairs.add(pair);
+        }
+    }
+
+    /**
+     * Replaces the current generation with {@code pairs} bucketed under {@code newCapacity}. The first
+     * {@code existing} pairs are already counted in the insert statistics.
+     */
+    private void build(List<Pair<K, V>> pairs, int existing, int newCapacity, ForkJoinPool pool) {
+        Function<K, Integer> cipher = hashCipher;
+        int count = pairs.size();
+        int[] indexes = new int[count];
+        ParallelBuckets.forRange(pool, 0, count, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                indexes[i] = indexFor(cipher, newCapacity, pairs.get(i).key);
+            }
+        });
+
+        int[] starts = new int[newCapacity + 1];
+        for (int index : indexes) {
+            starts[index + 1]++;
+        }
+        for (int i = 0; i < newCapacity; i++) {
+            starts[i + 1] += starts[i];
+        }
+        int[] order = new int[count];
+        int[] cursors = java.util.Arrays.copyOf(starts, newCapacity);
+        for (int i = 0; i < count; i++) {
+            order[cursors[indexes[i]]++] = i;
+        }
+
+        Object[] primary = new Object[newCapacity];
+        Object[] secondary = new Object[newCapacity];
+        ParallelBuckets.forRange(pool, 0, newCapacity, (fromBucket, toBucket) -> {
+            for (int bucket = fromBucket; bucket < toBucket; bucket++) {
+                int from = starts[bucket];
+                int to = starts[bucket + 1];
+                if (from < to) {
+                    primary[bucket] = pairs.get(order[from]);
+                }
+                if (to - from > 1) {
+                    ArrayList<Pair<K, V>> list = new ArrayList<>(to - from - 1);
+                    for (int j = from + 1; j < to; j++) {
+                        list.add(pairs.get(order[j]));
+                    }
+                    secondary[bucket] = list;
+                }
+            }
+        });
+
+        int newPrimaries = 0;
+        int overflow = 0;
+        for (int bucket = 0; bucket < newCapacity; bucket++) {
+            int from = starts[bucket];
+            int to = starts[bucket + 1];
+            if (from < to && order[from] >= existing) {
+                newPrimaries++;
+            }
+            if (to - from > 1) {
+                overflow++;
+            }
+        }
+
+        primaryTable = primary;
+        secondaryTable = secondary;
+        capacity = newCapacity;
+        size = count;
+        overflowBuckets = overflow;
+        totalInserts += count - existing;
+        collisions += count - existing - newPrimaries;
+        fireTableRebuilt();
+    }
+
+    /**
+     * Installs {@code newCipher} as a new generation without rebuilding in place. Lookups consult both
+     * generations while buckets move over on each insert and delete or through {@link #rehashStep(int)}.
+     */
+    public void migrateHashCipher(Function<K, Integer> newCipher) {
+        completeRehash();
+        startRehash(newCipher, capacity);
+    }
+
+    /**
+     * Guards against flooding: once an insert leaves a secondary chain longer than {@code maxChainLength},
+     * the table rebuilds under a freshly seeded cipher, at most {@code maxReseeds} times. A {@link HashCipher}
+     * is reseeded within its family; any other cipher is replaced by a seeded MurmurHash3 of the key's hash
+     * code. Every such cipher hashes {@code hashCode()}, so a chain whose keys all share one hash code stays
+     * together under any seed; it is left as a linear chain and does not trigger a reseed. A non-positive
+     * length disables the check.
+     */
+    public void setMaxChainLength(int maxChainLength, int maxReseeds) {
+        this.maxChainLength = maxChainLength;
+        this.maxReseeds = maxReseeds;
+    }
+
+    public int getMaxChainLength() {
+        return maxChainLength;
+    }
+
+    public int getReseedCount() {
+        return reseeds;
+    }
+
+    private void reseedIfUseful(int index) {
+        if (reseeds >= maxReseeds) {
+            return;
+        }
+        // Keys sharing a hash code stay together under every cipher, as all of them hash hashCode().
+        int first = Objects.hashCode(((Pair<K, V>) primaryTable[index]).key);
+        boolean distinct = false;
+        for (Pair<K, V> pair : (ArrayList<Pair<K, V>>) secondaryTable[index]) {
+            if (Objects.hashCode(pair.key) != first) {
+                distinct = true;
+                break;
+            }
+        }
+        if (!distinct) {
+            return;
+        }
+
+        reseeds++;
+        long seed = ThreadLocalRandom.current().nextLong();
+        setHashCipher(hashCipher instanceof HashCipher<K> cipher ? cipher.reseed(seed) : HashCipher.murmur3(seed));
+    }
+
+    public void addChangeListener(TableChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(TableChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void fireBucketChanged(int index) {
+        for (int i = 0; i < changeListeners.size(); i++) {
+            changeListeners.get(i).bucketChanged(index);
+        }
+    }
+
+    private void fireTableRebuilt() {
+        for (int i = 0; i < changeListeners.size(); i++) {
+            changeListeners.get(i).tableRebuilt();
+        }
     }
 
     public Function<K, Integer> getHashCipher() {
@@ -50,33 +344,111 @@ public class TwoLevelHashTable<K, V> {
         return capacity;
     }
 
+    public int size() {
+        return size;
+    }
+
+    public double getLoadFactor() {
+        return (double) size / capacity;
+    }
+
+    public boolean isRehashing() {
+        return rehashIndex >= 0;
+    }
+
     public void insert(K key, V value) {
+        insert(new Pair<>(key, value));
+    }
+
+    /**
+     * Inserts an entry that expires {@code ttl} from now. From then on lookups no longer see it, and it is
+     * removed by the first lookup or insert that reaches its bucket or by {@link #expireEntries()}, whichever
+     * comes first. Until then it still counts towards {@link #size()}. A TTL too long to represent in nanoseconds
+     * from the expiry epoch never expires.
+     */
+    public void insert(K key, V value, long ttl, TimeUnit unit) {
+        long now = clock.getAsLong();
+        if (expirations == null) {
+            expirations = new TimingWheel<>();
+            expiryEpoch = now;
+        }
+        Pair<K, V> pair = new Pair<>(key, value);
+        long elapsed = now - expiryEpoch;
+        long ttlNanos = Math.max(1, unit.toNanos(ttl));
+        if (elapsed <= Long.MAX_VALUE - ttlNanos) {
+            pair.expiresAt = elapsed + ttlNanos;
+            long tick = pair.expiresAt / EXPIRY_TICK_NANOS + (pair.expiresAt % EXPIRY_TICK_NANOS == 0 ? 0 : 1);
+            expirations.schedule(pair, tick);
+        }
+        insert(pair);
+    }
+
+    private void insert(Pair<K, V> pair) {
+        long start = startTimer();
+        expireLazily(pair.key);
         totalInserts++;
-        int index = hashCipher.apply(key) % capacity;
+        int index = indexFor(pair.key);
 
+        overflowBuckets -= overflowAt(index);
         if (primaryTable[index] == null) {
-            primaryTable[index] = new Pair<>(key, value);
+            primaryTable[index] = pair;
         } else {
             collisions++;
             if (secondaryTable[index] == null) {
-                secondaryTable[index] = new LinkedList<Pair<K, V>>();
+                secondaryTable[index] = new ArrayList<Pair<K, V>>();
             }
-            LinkedList<Pair<K, V>> list = (LinkedList<Pair<K, V>>) secondaryTable[index];
-            list.add(new Pair<>(key, value));
+            ArrayList<Pair<K, V>> list = (ArrayList<Pair<K, V>>) secondaryTable[index];
+            list.add(pair);
+        }
+        overflowBuckets += overflowAt(index);
+        size++;
+        fireBucketChanged(index);
+
+        if (maxChainLength > 0 && secondaryTable[index] != null
+                && ((ArrayList<?>) secondaryTable[index]).size() > maxChainLength) {
+            reseedIfUseful(index);
+        }
+
+        rehashStep();
+        if (maxLoadFactor > 0 && !isRehashing() && size > capacity * maxLoadFactor) {
+            startRehash(hashCipher, capacity * 2);
         }
+        stopTimer(insertLatency, start);
     }
 
     public boolean delete(K key) {
-        int index = hashCipher.apply(key) % capacity;
+        long start = startTimer();
+        boolean removedOld = isRehashing() && deleteFromOld(key);
+        boolean removed = deleteFromCurrent(key) || removedOld;
+
+        rehashStep();
+        if (minLoadFactor > 0 && !isRehashing() && capacity > minCapacity && size < capacity * minLoadFactor) {
+            startRehash(hashCipher, Math.max(minCapacity, capacity / 2));
+        }
+        stopTimer(deleteLatency, start);
+        return removed;
+    }
+
+    private boolean deleteFromCurrent(K key) {
+        int index = indexFor(key);
 
         if (primaryTable[index] != null && ((Pair<K, V>) primaryTable[index]).key.equals(key)) {
+            overflowBuckets -= overflowAt(index);
             primaryTable[index] = null;
+            size--;
+            fireBucketChanged(index);
         } else {
             if (secondaryTable[index] != null) {
-                LinkedList<Pair<K, V>> list = (LinkedList<Pair<K, V>>) secondaryTable[index];
+                ArrayList<Pair<K, V>> list = (ArrayList<Pair<K, V>>) secondaryTable[index];
+                int before = list.size();
                 boolean removed = list.removeIf(pair -> pair.key.equals(key));
+                size -= before - list.size();
+                if (removed) {
+                    fireBucketChanged(index);
+                }
 
                 if (removed && list.isEmpty()) {
+                    overflowBuckets -= overflowAt(index);
                     secondaryTable[index] = null;
                     return true;
                 }
@@ -88,38 +460,696 @@ public class TwoLevelHashTable<K, V> {
         return true;
     }
 
+    private boolean deleteFromOld(K key) {
+        int index = oldIndexFor(key);
+        if (index < rehashIndex) {
+            return false;
+        }
+
+        boolean removed = false;
+        if (oldPrimaryTable[index] != null && ((Pair<K, V>) oldPrimaryTable[index]).key.equals(key)) {
+            oldPrimaryTable[index] = null;
+            size--;
+            removed = true;
+        }
+        if (oldSecondaryTable[index] != null) {
+            ArrayList<Pair<K, V>> list = (ArrayList<Pair<K, V>>) oldSecondaryTable[index];
+            int before = list.size();
+            list.removeIf(pair -> pair.key.equals(key));
+            size -= before - list.size();
+            removed |= before != list.size();
+            if (list.isEmpty()) {
+                oldSecondaryTable[index] = null;
+            }
+        }
+        return removed;
+    }
 
     public LinkedList<V> search(K key) {
-        int index = hashCipher.apply(key) % capacity;
-        LinkedList<V> results = new LinkedList<>();
+        long start = startTimer();
+        expireLazily(key);
+        long before = probes;
+        LinkedList<V> results = searchInto(primaryTable, secondaryTable, indexFor(key), key, null);
+        if (isRehashing()) {
+            int oldIndex = oldIndexFor(key);
+            if (oldIndex >= rehashIndex) {
+                results = searchInto(oldPrimaryTable, oldSecondaryTable, oldIndex, key, results);
+            }
+        }
+        recordSearch(results != null, probes - before, start);
+        return results;
+    }
 
-        if (primaryTable[index] != null && ((Pair<K, V>) primaryTable[index]).key.equals(key)) {
-            results.add(((Pair<K, V>) primaryTable[index]).value);
+    public V get(K key) {
+        long start = startTimer();
+        expireLazily(key);
+        long before = probes;
+        Pair<K, V> pair = findFirst(key);
+        recordSearch(pair != null, probes - before, start);
+        return pair == null ? null : pair.value;
+    }
+
+    public boolean containsKey(K key) {
+        long start = startTimer();
+        expireLazily(key);
+        long before = probes;
+        boolean found = findFirst(key) != null;
+        recordSearch(found, probes - before, start);
+        return found;
+    }
+
+    /**
+     * Inserts {@code entries} as if one by one, but hashes every key first and then fills each touched bucket
+     * in a single visit, in ascending bucket order, dropping its expired entries first. A batch that would exceed
+     * the load factor goes through {@link #bulkLoad(Iterable)} instead, so the table grows once rather than
+     * mid-batch.
+     */
+    public void insertAll(List<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        int count = entries.size();
+        if (maxLoadFactor > 0 && size + count > capacity * maxLoadFactor) {
+            bulkLoad(entries);
+            return;
+        }
+
+        migrateBucketsOf(count, i -> entries.get(i).getKey());
+        long[] order = bucketOrder(count, i -> entries.get(i).getKey());
+        long elapsed = expiryElapsed();
+        int flooded = -1;
+        for (int from = 0, to; from < count; from = to) {
+            int index = bucketOf(order[from]);
+            to = groupEnd(order, from);
+            if (expirations != null) {
+                expireBucket(primaryTable, secondaryTable, index, elapsed);
+            }
+
+            overflowBuckets -= overflowAt(index);
+            for (int i = from; i < to; i++) {
+                Map.Entry<? extends K, ? extends V> entry = entries.get(positionOf(order[i]));
+                Pair<K, V> pair = new Pair<>(entry.getKey(), entry.getValue());
+                totalInserts++;
+                if (primaryTable[index] == null) {
+                    primaryTable[index] = pair;
+                } else {
+                    collisions++;
+                    if (secondaryTable[index] == null) {
+                        secondaryTable[index] = new ArrayList<Pair<K, V>>(to - i);
+                    }
+                    ((ArrayList<Pair<K, V>>) secondaryTable[index]).add(pair);
+                }
+            }
+            size += to - from;
+            overflowBuckets += overflowAt(index);
+            fireBucketChanged(index);
+
+            if (flooded < 0 && maxChainLength > 0 && secondaryTable[index] != null
+                    && ((ArrayList<?>) secondaryTable[index]).size() > maxChainLength) {
+                flooded = index;
+            }
+        }
+        if (flooded >= 0) {
+            reseedIfUseful(flooded);
+        }
+        rehashStep();
+    }
+
+    /**
+     * Looks up every key of {@code keys} and returns what {@link #search} would for each, in the order of
+     * {@code keys}. Each touched bucket is walked once, in ascending order, for all the keys that hash to it;
+     * a key given more than once is looked up once and its list copied.
+     */
+    public List<LinkedList<V>> searchAll(List<? extends K> keys) {
+        int count = keys.size();
+        migrateBucketsOf(count, keys::get);
+        List<LinkedList<V>> results = new ArrayList<>(Collections.nCopies(count, null));
+        long[] order = bucketOrder(count, keys::get);
+        int largest = 0;
+        for (int from = 0, to; from < count; from = to) {
+            to = groupEnd(order, from);
+            largest = Math.max(largest, to - from);
+        }
+        Object[] groupKeys = new Object[largest];
+        LinkedList<V>[] groupValues = new LinkedList[largest];
+        int[] keyOf = new int[largest];
+        boolean[] handedOut = new boolean[largest];
+
+        long elapsed = expiryElapsed();
+        for (int from = 0, to; from < count; from = to) {
+            long start = startTimer();
+            int index = bucketOf(order[from]);
+            to = groupEnd(order, from);
+            if (expirations != null) {
+                expireBucket(primaryTable, secondaryTable, index, elapsed);
+            }
+
+            if (to - from == 1) {
+                long before = probes;
+                LinkedList<V> found = searchInto(primaryTable, secondaryTable, index, keys.get(positionOf(order[from])), null);
+                recordSearch(found != null, probes - before, start);
+                results.set(positionOf(order[from]), found);
+                continue;
+            }
+
+            int distinct = 0;
+            for (int i = from; i < to; i++) {
+                K key = keys.get(positionOf(order[i]));
+                int k = 0;
+                while (k < distinct && !groupKeys[k].equals(key)) {
+                    k++;
+                }
+                if (k == distinct) {
+                    groupKeys[distinct++] = key;
+                }
+                keyOf[i - from] = k;
+            }
+
+            long before = probes;
+            searchGroupInto(index, groupKeys, distinct, groupValues);
+            // A lone search walks the whole bucket too, so every key is charged the full walk.
+            long bucketProbes = probes - before;
+            for (int k = 0; k < distinct; k++) {
+                recordSearch(groupValues[k] != null, bucketProbes, start);
+                handedOut[k] = false;
+            }
+
+            for (int i = from; i < to; i++) {
+                int k = keyOf[i - from];
+                LinkedList<V> found = groupValues[k];
+                if (found != null && handedOut[k]) {
+                    found = new LinkedList<>(found);
+                }
+                handedOut[k] = true;
+                results.set(positionOf(order[i]), found);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Removes every entry whose key is in {@code keys}, primary slot and chain alike, visiting each touched
+     * bucket once in ascending order, and returns the number of entries removed.
+     */
+    public int deleteAll(List<? extends K> keys) {
+        int count = keys.size();
+        migrateBucketsOf(count, keys::get);
+        long[] order = bucketOrder(count, keys::get);
+        int removed = 0;
+        for (int from = 0, to; from < count; from = to) {
+            int index = bucketOf(order[from]);
+            int groupFrom = from;
+            int groupTo = groupEnd(order, from);
+            to = groupTo;
+            Predicate<Pair<K, V>> doomed = pair -> {
+                for (int i = groupFrom; i < groupTo; i++) {
+                    if (pair.key.equals(keys.get(positionOf(order[i])))) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+
+            int before = size;
+            overflowBuckets -= overflowAt(index);
+            if (primaryTable[index] != null && doomed.test((Pair<K, V>) primaryTable[index])) {
+                primaryTable[index] = null;
+                size--;
+            }
+            if (secondaryTable[index] != null) {
+                ArrayList<Pair<K, V>> list = (ArrayList<Pair<K, V>>) secondaryTable[index];
+                int chained = list.size();
+                list.removeIf(doomed);
+                size -= chained - list.size();
+                if (list.isEmpty()) {
+                    secondaryTable[index] = null;
+                }
+            }
+            overflowBuckets += overflowAt(index);
+            if (size != before) {
+                removed += before - size;
+                fireBucketChanged(index);
+            }
         }
 
+        if (removed > 0) {
+            updateCollisions();
+        }
+        rehashStep();
+        if (minLoadFactor > 0 && !isRehashing() && capacity > minCapacity && size < capacity * minLoadFactor) {
+            startRehash(hashCipher, Math.max(minCapacity, capacity / 2));
+        }
+        return removed;
+    }
+
+    /**
+     * Moves the pending old-generation buckets of {@code count} keys into the current generation ahead of the
+     * sweep, so a batch finds each key in one bucket without finishing the whole migration. The sweep later
+     * passes over the emptied buckets.
+     */
+    private void migrateBucketsOf(int count, IntFunction<? extends K> keyAt) {
+        for (int i = 0; i < count && isRehashing(); i++) {
+            int oldIndex = oldIndexFor(keyAt.apply(i));
+            if (oldIndex >= rehashIndex) {
+                migrateBucket(oldIndex);
+            }
+        }
+    }
+
+    /**
+     * Hashes {@code count} keys and returns their positions sorted by bucket, each packed as
+     * {@code bucket << 32 | position} so one primitive sort groups them and keeps each bucket in input order.
+     */
+    private long[] bucketOrder(int count, IntFunction<? extends K> keyAt) {
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (long) indexFor(keyAt.apply(i)) << 32 | i;
+        }
+        java.util.Arrays.sort(order);
+        return order;
+    }
+
+    private static int groupEnd(long[] order, int from) {
+        int to = from + 1;
+        while (to < order.length && bucketOf(order[to]) == bucketOf(order[from])) {
+            to++;
+        }
+        return to;
+    }
+
+    private static int bucketOf(long slot) {
+        return (int) (slot >>> 32);
+    }
+
+    private static int positionOf(long slot) {
+        return (int) slot;
+    }
+
+    /**
+     * Removes every entry whose TTL has passed. The timing wheel hands over only the entries that came due since
+     * the previous call, and each is purged from its own bucket, so the cost follows the number of expirations
+     * rather than the table size. Returns the number of entries removed.
+     */
+    public int expireEntries() {
+        if (expirations == null) {
+            return 0;
+        }
+        long elapsed = clock.getAsLong() - expiryEpoch;
+        int[] removed = new int[1];
+        expirations.advanceTo(elapsed / EXPIRY_TICK_NANOS, pair -> removed[0] += expireBuckets(pair.key, elapsed));
+        return removed[0];
+    }
+
+    /**
+     * Returns the number of entries removed because their TTL passed.
+     */
+    public long getExpiredCount() {
+        return expiredEntries;
+    }
+
+    void setClock(LongSupplier nanoClock) {
+        this.clock = nanoClock;
+    }
+
+    /**
+     * Returns the time since the expiry epoch that entries are judged against, or 0 before any entry had a TTL.
+     */
+    private long expiryElapsed() {
+        return expirations == null ? 0 : clock.getAsLong() - expiryEpoch;
+    }
+
+    private void expireLazily(K key) {
+        if (expirations != null) {
+            expireBuckets(key, clock.getAsLong() - expiryEpoch);
+        }
+    }
+
+    private int expireBuckets(K key, long elapsed) {
+        int removed = expireBucket(primaryTable, secondaryTable, indexFor(key), elapsed);
+        if (isRehashing()) {
+            int oldIndex = oldIndexFor(key);
+            if (oldIndex >= rehashIndex) {
+                removed += expireBucket(oldPrimaryTable, oldSecondaryTable, oldIndex, elapsed);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Drops the expired entries of one bucket. When the primary slot expires, the head of the chain moves up
+     * into it, so surviving entries do not stay counted as overflow.
+     */
+    private int expireBucket(Object[] primary, Object[] secondary, int index, long elapsed) {
+        ArrayList<Pair<K, V>> list = (ArrayList<Pair<K, V>>) secondary[index];
+        boolean primaryExpired = primary[index] != null && ((Pair<K, V>) primary[index]).isExpired(elapsed);
+        boolean chainExpired = false;
+        for (int i = 0; list != null && !chainExpired && i < list.size(); i++) {
+            chainExpired = list.get(i).isExpired(elapsed);
+        }
+        if (!primaryExpired && !chainExpired) {
+            return 0;
+        }
+
+        boolean current = primary == primaryTable;
+        if (current) {
+            overflowBuckets -= overflowAt(index);
+        }
+        int removed = 0;
+        if (primaryExpired) {
+            primary[index] = null;
+            removed++;
+        }
+        if (list != null) {
+            int before = list.size();
+            list.removeIf(pair -> pair.isExpired(elapsed));
+            removed += before - list.size();
+            if (primaryExpired && !list.isEmpty()) {
+                primary[index] = list.remove(0);
+            }
+            if (list.isEmpty()) {
+                secondary[index] = null;
+            }
+        }
+        size -= removed;
+        expiredEntries += removed;
+        if (current) {
+            overflowBuckets += overflowAt(index);
+            fireBucketChanged(index);
+        }
+        updateCollisions();
+        return removed;
+    }
+
+    public int forEachValue(K key, Consumer<? super V> action) {
+        long start = startTimer();
+        expireLazily(key);
+        long before = probes;
+        int found = forEachValue(primaryTable, secondaryTable, indexFor(key), key, action);
+        if (isRehashing()) {
+            int oldIndex = oldIndexFor(key);
+            if (oldIndex >= rehashIndex) {
+                found += forEachValue(oldPrimaryTable, oldSecondaryTable, oldIndex, key, action);
+            }
+        }
+        recordSearch(found > 0, probes - before, start);
+        return found;
+    }
+
+    public int lookupInto(K key, Collection<? super V> sink) {
+        long start = startTimer();
+        expireLazily(key);
+        long before = probes;
+        int found = lookupInto(primaryTable, secondaryTable, indexFor(key), key, sink);
+        if (isRehashing()) {
+            int oldIndex = oldIndexFor(key);
+            if (oldIndex >= rehashIndex) {
+                found += lookupInto(oldPrimaryTable, oldSecondaryTable, oldIndex, key, sink);
+            }
+        }
+        recordSearch(found > 0, probes - before, start);
+        return found;
+    }
+
+    private Pair<K, V> findFirst(K key) {
+        Pair<K, V> pair = findFirst(primaryTable, secondaryTable, indexFor(key), key);
+        if (pair == null && isRehashing()) {
+            int oldIndex = oldIndexFor(key);
+            if (oldIndex >= rehashIndex) {
+                pair = findFirst(oldPrimaryTable, oldSecondaryTable, oldIndex, key);
+            }
+        }
+        return pair;
+    }
+
+    // The per-generation walks below share probe() for their accounting but keep separate loops, so no lookup
+    // allocates a wrapper around its sink: each walks the primary slot, then the chain, exactly once.
+
+    private Pair<K, V> findFirst(Object[] primary, Object[] secondary, int index, K key) {
+        if (primary[index] != null && probe((Pair<K, V>) primary[index], key)) {
+            return (Pair<K, V>) primary[index];
+        }
+        if (secondary[index] != null) {
+            ArrayList<Pair<K, V>> list = (ArrayList<Pair<K, V>>) secondary[index];
+            for (int i = 0; i < list.size(); i++) {
+                if (probe(list.get(i), key)) {
+                    return list.get(i);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Appends the matching values to {@code results}, creating the list on the first match, and returns it.
+     */
+    private LinkedList<V> searchInto(Object[] primary, Object[] secondary, int index, K key, LinkedList<V> results) {
+        if (primary[index] != null && probe((Pair<K, V>) primary[index], key)) {
+            results = results == null ? new LinkedList<>() : results;
+            results.add(((Pair<K, V>) primary[index]).value);
+        }
+        if (secondary[index] != null) {
+            ArrayList<Pair<K, V>> list = (ArrayList<Pair<K, V>>) secondary[index];
+            for (int i = 0; i < list.size(); i++) {
+                if (probe(list.get(i), key)) {
+                    results = results == null ? new LinkedList<>() : results;
+                    results.add(list.get(i).value);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Walks bucket {@code index} of the current generation once and sorts each value into the list of the
+     * matching key among the first {@code distinct} of {@code groupKeys}; keys without a match get null.
+     */
+    private void searchGroupInto(int index, Object[] groupKeys, int distinct, LinkedList<V>[] groupValues) {
+        java.util.Arrays.fill(groupValues, 0, distinct, null);
+        if (primaryTable[index] != null) {
+            collect((Pair<K, V>) primaryTable[index], groupKeys, distinct, groupValues);
+        }
         if (secondaryTable[index] != null) {
-            LinkedList<Pair<K, V>> list = (LinkedList<Pair<K, V>>) secondaryTable[index];
-            for (Pair<K, V> pair : list) {
-                if (pair.key.equals(key)) {
-                    results.add(pair.value);
+            ArrayList<Pair<K, V>> list = (ArrayList<Pair<K, V>>) secondaryTable[index];
+            for (int i = 0; i < list.size(); i++) {
+                collect(list.get(i), groupKeys, distinct, groupValues);
+            }
+        }
+    }
+
+    private void collect(Pair<K, V> pair, Object[] groupKeys, int distinct, LinkedList<V>[] groupValues) {
+        probes++;
+        for (int k = 0; k < distinct; k++) {
+            if (pair.key.equals(groupKeys[k])) {
+                if (groupValues[k] == null) {
+                    groupValues[k] = new LinkedList<>();
                 }
+                groupValues[k].add(pair.value);
+                return;
             }
         }
+    }
 
-        return results.isEmpty() ? null : results;
+    private int forEachValue(Object[] primary, Object[] secondary, int index, K key, Consumer<? super V> action) {
+        int found = 0;
+        if (primary[index] != null && probe((Pair<K, V>) primary[index], key)) {
+            action.accept(((Pair<K, V>) primary[index]).value);
+            found++;
+        }
+        if (secondary[index] != null) {
+            ArrayList<Pair<K, V>> list = (ArrayList<Pair<K, V>>) secondary[index];
+            for (int i = 0; i < list.size(); i++) {
+                if (probe(list.get(i), key)) {
+                    action.accept(list.get(i).value);
+                    found++;
+                }
+            }
+        }
+        return found;
     }
 
-    public boolean containsKey(K key) {
-        return search(key) != null;
+    private int lookupInto(Object[] primary, Object[] secondary, int index, K key, Collection<? super V> sink) {
+        int found = 0;
+        if (primary[index] != null && probe((Pair<K, V>) primary[index], key)) {
+            sink.add(((Pair<K, V>) primary[index]).value);
+            found++;
+        }
+        if (secondary[index] != null) {
+            ArrayList<Pair<K, V>> list = (ArrayList<Pair<K, V>>) secondary[index];
+            for (int i = 0; i < list.size(); i++) {
+                if (probe(list.get(i), key)) {
+                    sink.add(list.get(i).value);
+                    found++;
+                }
+            }
+        }
+        return found;
     }
 
-    private void updateCollisions() {
-        collisions = 0;
+    private boolean probe(Pair<K, V> pair, K key) {
+        probes++;
+        return pair.key.equals(key);
+    }
+
+    private void recordSearch(boolean found, long searchProbes, long start) {
+        if (found) {
+            successfulSearches++;
+            successfulProbes += searchProbes;
+        } else {
+            unsuccessfulSearches++;
+            unsuccessfulProbes += searchProbes;
+        }
+        stopTimer(searchLatency, start);
+    }
+
+    private long startTimer() {
+        return latencyTracking ? System.nanoTime() : 0;
+    }
+
+    private void stopTimer(LatencyHistogram histogram, long start) {
+        if (latencyTracking) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    public void setLatencyTracking(boolean enabled) {
+        this.latencyTracking = enabled;
+    }
+
+    public boolean isLatencyTracking() {
+        return latencyTracking;
+    }
+
+    public TableMetrics getMetrics() {
+        int[] histogram = new int[1];
+        int overflowEntries = 0;
         for (int i = 0; i < capacity; i++) {
-            if (primaryTable[i] != null && secondaryTable[i] != null) {
-                collisions++;
+            int length = secondaryTable[i] == null ? 0 : ((ArrayList<?>) secondaryTable[i]).size();
+            histogram = countChain(histogram, length);
+            overflowEntries += length;
+        }
+        for (int i = Math.max(rehashIndex, 0); i < oldCapacity; i++) {
+            int length = oldSecondaryTable[i] == null ? 0 : ((ArrayList<?>) oldSecondaryTable[i]).size();
+            histogram = countChain(histogram, length);
+            overflowEntries += length;
+        }
+
+        return new TableMetrics(size, capacity, overflowEntries, histogram,
+                successfulSearches, successfulProbes, unsuccessfulSearches, unsuccessfulProbes,
+                insertLatency.copy(), deleteLatency.copy(), searchLatency.copy());
+    }
+
+    private static int[] countChain(int[] histogram, int length) {
+        if (length >= histogram.length) {
+            histogram = java.util.Arrays.copyOf(histogram, length + 1);
+        }
+        histogram[length]++;
+        return histogram;
+    }
+
+    public void resetMetrics() {
+        successfulSearches = 0;
+        successfulProbes = 0;
+        unsuccessfulSearches = 0;
+        unsuccessfulProbes = 0;
+        insertLatency.reset();
+        deleteLatency.reset();
+        searchLatency.reset();
+    }
+
+    private int indexFor(K key) {
+        return indexFor(hashCipher, capacity, key);
+    }
+
+    private int oldIndexFor(K key) {
+        return indexFor(oldHashCipher, oldCapacity, key);
+    }
+
+    private static <K> int indexFor(Function<K, Integer> cipher, int capacity, K key) {
+        return HashCipher.indexFor(HashCipher.hashOf(cipher, key), capacity);
+    }
+
+    private int overflowAt(int index) {
+        return primaryTable[index] != null && secondaryTable[index] != null ? 1 : 0;
+    }
+
+    private void updateCollisions() {
+        collisions = overflowBuckets;
+    }
+
+    private void startRehash(Function<K, Integer> newCipher, int newCapacity) {
+        oldPrimaryTable = primaryTable;
+        oldSecondaryTable = secondaryTable;
+        oldHashCipher = hashCipher;
+        oldCapacity = capacity;
+        rehashIndex = 0;
+
+        hashCipher = newCipher;
+        capacity = newCapacity;
+        primaryTable = new Object[newCapacity];
+        secondaryTable = new Object[newCapacity];
+        overflowBuckets = 0;
+        fireTableRebuilt();
+    }
+
+    private void rehashStep() {
+        rehashStep(REHASH_STEP);
+    }
+
+    /**
+     * Migrates up to {@code buckets} buckets of a pending resize or cipher migration and returns whether
+     * the migration is still in progress, so an owner can drive it from a timer or idle loop.
+     */
+    public boolean rehashStep(int buckets) {
+        for (int moved = 0; moved < buckets && isRehashing(); moved++) {
+            migrateBucket(rehashIndex++);
+            if (rehashIndex == oldCapacity) {
+                oldPrimaryTable = null;
+                oldSecondaryTable = null;
+                oldHashCipher = null;
+                oldCapacity = 0;
+                rehashIndex = -1;
+            }
+        }
+        return isRehashing();
+    }
+
+    /**
+     * Returns the fraction of the pending migration's buckets already moved, or 1 when none is in progress.
+     */
+    public double getRehashProgress() {
+        return isRehashing() ? (double) rehashIndex / oldCapacity : 1;
+    }
+
+    public void completeRehash() {
+        while (isRehashing()) {
+            rehashStep();
+        }
+    }
+
+    private void migrateBucket(int index) {
+        if (oldPrimaryTable[index] != null) {
+            place((Pair<K, V>) oldPrimaryTable[index]);
+            oldPrimaryTable[index] = null;
+        }
+        if (oldSecondaryTable[index] != null) {
+            for (Pair<K, V> pair : (ArrayList<Pair<K, V>>) oldSecondaryTable[index]) {
+                place(pair);
+            }
+            oldSecondaryTable[index] = null;
+        }
+    }
+
+    private void place(Pair<K, V> pair) {
+        int index = indexFor(pair.key);
+
+        overflowBuckets -= overflowAt(index);
+        if (primaryTable[index] == null) {
+            primaryTable[index] = pair;
+        } else {
+            if (secondaryTable[index] == null) {
+                secondaryTable[index] = new ArrayList<Pair<K, V>>();
             }
+            ((ArrayList<Pair<K, V>>) secondaryTable[index]).add(pair);
         }
+        overflowBuckets += overflowAt(index);
+        fireBucketChanged(index);
     }
 
     public void display() {
@@ -139,42 +1169,450 @@ public class TwoLevelHashTable<K, V> {
     }
 
     public void clear() {
-        for (int i = 0; i < capacity; i++) {
-            primaryTable[i] = null;
-            secondaryTable[i] = null;
-        }
+        clear(null);
+    }
+
+    public void clear(ForkJoinPool pool) {
+        Object[] primary = primaryTable;
+        Object[] secondary = secondaryTable;
+        ParallelBuckets.forRange(pool, 0, capacity, (from, to) -> {
+            java.util.Arrays.fill(primary, from, to, null);
+            java.util.Arrays.fill(secondary, from, to, null);
+        });
+        oldPrimaryTable = null;
+        oldSecondaryTable = null;
+        oldHashCipher = null;
+        oldCapacity = 0;
+        rehashIndex = -1;
         collisions = 0;
         totalInserts = 0;
+        size = 0;
+        overflowBuckets = 0;
+        fireTableRebuilt();
+    }
+
+    /**
+     * Replaces this table's contents with those of {@code source}, taking over its buckets, cipher, statistics
+     * and pending expirations without copying an entry, and leaves {@code source} empty. A table can thus be
+     * filled off to the side and swapped in at the cost of a few field writes.
+     */
+    public void moveFrom(TwoLevelHashTable<K, V> source) {
+        source.completeRehash();
+        primaryTable = source.primaryTable;
+        secondaryTable = source.secondaryTable;
+        hashCipher = source.hashCipher;
+        capacity = source.capacity;
+        size = source.size;
+        overflowBuckets = source.overflowBuckets;
+        collisions = source.collisions;
+        totalInserts = source.totalInserts;
+        expirations = source.expirations;
+        expiryEpoch = source.expiryEpoch;
+        oldPrimaryTable = null;
+        oldSecondaryTable = null;
+        oldHashCipher = null;
+        oldCapacity = 0;
+        rehashIndex = -1;
+
+        source.primaryTable = new Object[source.capacity];
+        source.secondaryTable = new Object[source.capacity];
+        source.expirations = null;
+        source.clear();
+        fireTableRebuilt();
     }
 
     public double getCollisionRate() {
         return totalInserts == 0 ? 0 : (double) collisions / totalInserts;
     }
 
+    public int bucketIndex(K key) {
+        return indexFor(key);
+    }
+
+    /**
+     * Visits the entries of bucket {@code index} of the current generation, primary slot first. Like every
+     * iteration and export, this skips entries whose TTL has passed even if they were not removed yet.
+     */
+    public void forEachInBucket(int index, BiConsumer<? super K, ? super V> action) {
+        forEach(primaryTable, secondaryTable, index, index + 1, action);
+    }
+
+    /**
+     * Returns the entry in the primary slot of bucket {@code index} of the current generation, or null if the
+     * slot is empty.
+     */
+    public Map.Entry<K, V> primaryEntryAt(int index) {
+        Pair<K, V> pair = (Pair<K, V>) primaryTable[index];
+        return pair == null || pair.isExpired(expiryElapsed()) ? null : pair;
+    }
+
+    /**
+     * Visits the overflow chain of bucket {@code index} of the current generation, skipping its primary slot.
+     */
+    public void forEachInChain(int index, BiConsumer<? super K, ? super V> action) {
+        if (secondaryTable[index] != null) {
+            long elapsed = expiryElapsed();
+            for (Pair<K, V> pair : (ArrayList<Pair<K, V>>) secondaryTable[index]) {
+                if (!pair.isExpired(elapsed)) {
+                    action.accept(pair.key, pair.value);
+                }
+            }
+        }
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(primaryTable, secondaryTable, 0, capacity, action);
+        if (isRehashing()) {
+            forEach(oldPrimaryTable, oldSecondaryTable, rehashIndex, oldCapacity, action);
+        }
+    }
+
+    private void forEach(Object[] primary, Object[] secondary, int from, int to, BiConsumer<? super K, ? super V> action) {
+        long elapsed = expiryElapsed();
+        for (int i = from; i < to; i++) {
+            if (primary[i] != null) {
+                Pair<K, V> pair = (Pair<K, V>) primary[i];
+                if (!pair.isExpired(elapsed)) {
+                    action.accept(pair.key, pair.value);
+                }
+            }
+            if (secondary[i] != null) {
+                ArrayList<Pair<K, V>> list = (ArrayList<Pair<K, V>>) secondary[i];
+                for (int j = 0; j < list.size(); j++) {
+                    Pair<K, V> pair = list.get(j);
+                    if (!pair.isExpired(elapsed)) {
+                        action.accept(pair.key, pair.value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Iterates the live entries in bucket order without copying them. Setting an entry's value updates the
+     * table; the table must not otherwise be modified while an iteration is in progress.
+     */
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    public Spliterator<Map.Entry<K, V>> spliterator() {
+        return new EntrySpliterator(0, bucketCount(), size, expiryElapsed());
+    }
+
+    public Stream<Map.Entry<K, V>> entries() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<K> keys() {
+        return entries().map(Map.Entry::getKey);
+    }
+
+    public Stream<V> values() {
+        return entries().map(Map.Entry::getValue);
+    }
+
+    private int bucketCount() {
+        return isRehashing() ? capacity + oldCapacity - rehashIndex : capacity;
+    }
+
+    /**
+     * Walks a range of buckets; indexes past {@code capacity} address the unmigrated buckets of the old
+     * generation. Splitting halves the bucket range, so each half can be scanned independently.
+     */
+    private class EntrySpliterator implements Spliterator<Map.Entry<K, V>> {
+        private final Object[] primary = primaryTable;
+        private final Object[] secondary = secondaryTable;
+        private final Object[] oldPrimary = oldPrimaryTable;
+        private final Object[] oldSecondary = oldSecondaryTable;
+        private final int split = capacity;
+        private final int oldStart = rehashIndex;
+        private int bucket;
+        private final int end;
+        private int position = -1;
+        private long estimate;
+        private final long elapsed;
+
+        EntrySpliterator(int bucket, int end, long estimate, long elapsed) {
+            this.bucket = bucket;
+            this.end = end;
+            this.estimate = estimate;
+            this.elapsed = elapsed;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            Objects.requireNonNull(action);
+            for (; bucket < end; bucket++, position = -1) {
+                boolean current = bucket < split;
+                int index = current ? bucket : bucket - split + oldStart;
+                if (position < 0) {
+                    position = 0;
+                    Pair<K, V> pair = (Pair<K, V>) (current ? primary : oldPrimary)[index];
+                    if (pair != null && !pair.isExpired(elapsed)) {
+                        action.accept(pair);
+                        return true;
+                    }
+                }
+                ArrayList<Pair<K, V>> list = (ArrayList<Pair<K, V>>) (current ? secondary : oldSecondary)[index];
+                while (list != null && position < list.size()) {
+                    Pair<K, V> pair = list.get(position++);
+                    if (!pair.isExpired(elapsed)) {
+                        action.accept(pair);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            while (tryAdvance(action)) {
+            }
+        }
+
+        @Override
+        public Spliterator<Map.Entry<K, V>> trySplit() {
+            int start = position < 0 ? bucket : bucket + 1;
+            int middle = (start + end) >>> 1;
+            if (middle <= start) {
+                return null;
+            }
+            long half = estimate >>> 1;
+            EntrySpliterator prefix = new EntrySpliterator(bucket, middle, estimate - half, elapsed);
+            prefix.position = position;
+            bucket = middle;
+            position = -1;
+            estimate = half;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    /**
+     * Streams every entry as {@code {"capacity": n, "entries": [[key, value], ...]}} straight from the buckets,
+     * so memory stays constant regardless of table size. The generator needs an {@code ObjectCodec} for
+     * non-primitive keys or values, as generators created by an {@code ObjectMapper} have.
+     */
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("capacity", capacity);
+        generator.writeArrayFieldStart("entries");
+        try {
+            forEach((key, value) -> {
+                try {
+                    generator.writeStartArray();
+                    generator.writeObject(key);
+                    generator.writeObject(value);
+                    generator.writeEndArray();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    /**
+     * Adds the entries as they are parsed, without materialising the document tree: every
+     * {@value #JSON_CHUNK_SIZE} entries go in through {@link #insertAll}, so at most one chunk is held besides the
+     * table, and a growing table is rebuilt only when a chunk crosses the load factor. Accepts the format written
+     * by {@link #writeJson} as well as the older {@code primaryTable}/{@code secondaryTable} maps. Returns the
+     * number of entries inserted.
+     */
+    public int readJson(JsonParser parser, Class<K> keyType, Class<V> valueType) throws IOException {
+        if (parser.currentToken() == null) {
+            parser.nextToken();
+        }
+        expect(parser, JsonToken.START_OBJECT);
+
+        List<Pair<K, V>> chunk = new ArrayList<>(JSON_CHUNK_SIZE);
+        int inserted = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("entries".equals(field)) {
+                expect(parser, JsonToken.START_ARRAY);
+                while (parser.nextToken() == JsonToken.START_ARRAY) {
+                    parser.nextToken();
+                    K key = parser.readValueAs(keyType);
+                    parser.nextToken();
+                    V value = parser.readValueAs(valueType);
+                    parser.nextToken();
+                    expect(parser, JsonToken.END_ARRAY);
+                    inserted += addToChunk(chunk, new Pair<>(key, value));
+                }
+            } else if ("primaryTable".equals(field) || "secondaryTable".equals(field)) {
+                expect(parser, JsonToken.START_OBJECT);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    K key = parser.getCodec().treeToValue(new TextNode(parser.getCurrentName()), keyType);
+                    if (parser.nextToken() == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            inserted += addToChunk(chunk, new Pair<>(key, parser.readValueAs(valueType)));
+                        }
+                    } else {
+                        inserted += addToChunk(chunk, new Pair<>(key, parser.readValueAs(valueType)));
+                    }
+                }
+            } else if (token.isStructStart()) {
+                parser.skipChildren();
+            }
+        }
+        insertAll(chunk);
+        return inserted + chunk.size();
+    }
+
+    /**
+     * Buffers {@code pair} and inserts the chunk once it is full, returning the number of entries inserted.
+     */
+    private int addToChunk(List<Pair<K, V>> chunk, Pair<K, V> pair) {
+        chunk.add(pair);
+        if (chunk.size() < JSON_CHUNK_SIZE) {
+            return 0;
+        }
+        insertAll(chunk);
+        chunk.clear();
+        return JSON_CHUNK_SIZE;
+    }
+
+    private static void expect(JsonParser parser, JsonToken expected) throws IOException {
+        if (parser.currentToken() != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + parser.currentToken());
+        }
+    }
+
     public Map<K, V> getPrimaryTable() {
-        Map<K, V> primaryMap = new HashMap<>();
-        for (int i = 0; i < capacity; i++) {
-            if (primaryTable[i] != null) {
-                Pair<K, V> pair = (Pair<K, V>) primaryTable[i];
+        return getPrimaryTable(null);
+    }
+
+    public Map<K, V> getPrimaryTable(ForkJoinPool pool) {
+        return reduceBuckets(pool, (primary, secondary, from, to) -> {
+            Map<K, V> primaryMap = new HashMap<>();
+            exportPrimary(primary, from, to, primaryMap);
+            return primaryMap;
+        }, TwoLevelHashTable::mergeMaps);
+    }
+
+    private void exportPrimary(Object[] primary, int from, int to, Map<K, V> primaryMap) {
+        long elapsed = expiryElapsed();
+        for (int i = from; i < to; i++) {
+            if (primary[i] != null && !((Pair<K, V>) primary[i]).isExpired(elapsed)) {
+                Pair<K, V> pair = (Pair<K, V>) primary[i];
                 primaryMap.put(pair.key, pair.value);
             }
         }
-        return primaryMap;
     }
 
     public Map<K, LinkedList<V>> getSecondaryTable() {
-        Map<K, LinkedList<V>> secondaryMap = new HashMap<>();
-        for (int i = 0; i < capacity; i++) {
-            if (secondaryTable[i] != null) {
-                LinkedList<Pair<K, V>> list = (LinkedList<Pair<K, V>>) secondaryTable[i];
+        return getSecondaryTable(null);
+    }
+
+    public Map<K, LinkedList<V>> getSecondaryTable(ForkJoinPool pool) {
+        return reduceBuckets(pool, (primary, secondary, from, to) -> {
+            Map<K, LinkedList<V>> secondaryMap = new HashMap<>();
+            exportSecondary(secondary, from, to, secondaryMap);
+            return secondaryMap;
+        }, TwoLevelHashTable::mergeMaps);
+    }
+
+    private static <M extends Map<?, ?>> M mergeMaps(M first, M second) {
+        ((Map<Object, Object>) first).putAll(second);
+        return first;
+    }
+
+    public long count(BiPredicate<? super K, ? super V> predicate) {
+        return count(predicate, null);
+    }
+
+    public long count(BiPredicate<? super K, ? super V> predicate, ForkJoinPool pool) {
+        return reduceBuckets(pool, (primary, secondary, from, to) -> {
+            long[] matches = new long[1];
+            forEach(primary, secondary, from, to, (key, value) -> {
+                if (predicate.test(key, value)) {
+                    matches[0]++;
+                }
+            });
+            return matches[0];
+        }, Long::sum);
+    }
+
+    public List<V> filterValues(Predicate<? super V> predicate) {
+        return filterValues(predicate, null);
+    }
+
+    /**
+     * Collects the values matching {@code predicate} in bucket order, scanning bucket ranges on {@code pool}.
+     */
+    public List<V> filterValues(Predicate<? super V> predicate, ForkJoinPool pool) {
+        return reduceBuckets(pool, (primary, secondary, from, to) -> {
+            List<V> matches = new ArrayList<>();
+            forEach(primary, secondary, from, to, (key, value) -> {
+                if (predicate.test(value)) {
+                    matches.add(value);
+                }
+            });
+            return matches;
+        }, (first, second) -> {
+            first.addAll(second);
+            return first;
+        });
+    }
+
+    private interface BucketRangeFunction<R> {
+        R apply(Object[] primary, Object[] secondary, int from, int to);
+    }
+
+    /**
+     * Reduces the buckets of both generations, splitting each into ranges on {@code pool}. The table must not
+     * be modified while the reduction runs.
+     */
+    private <R> R reduceBuckets(ForkJoinPool pool, BucketRangeFunction<R> leaf, BinaryOperator<R> combine) {
+        Object[] primary = primaryTable;
+        Object[] secondary = secondaryTable;
+        R result = ParallelBuckets.reduceRange(pool, 0, capacity,
+                (from, to) -> leaf.apply(primary, secondary, from, to), combine);
+        if (isRehashing()) {
+            Object[] oldPrimary = oldPrimaryTable;
+            Object[] oldSecondary = oldSecondaryTable;
+            result = combine.apply(result, ParallelBuckets.reduceRange(pool, rehashIndex, oldCapacity,
+                    (from, to) -> leaf.apply(oldPrimary, oldSecondary, from, to), combine));
+        }
+        return result;
+    }
+
+    private void exportSecondary(Object[] secondary, int from, int to, Map<K, LinkedList<V>> secondaryMap) {
+        long elapsed = expiryElapsed();
+        for (int i = from; i < to; i++) {
+            if (secondary[i] != null) {
+                K first = null;
                 LinkedList<V> values = new LinkedList<>();
-                for (Pair<K, V> pair : list) {
-                    values.add(pair.value);
+                for (Pair<K, V> pair : (ArrayList<Pair<K, V>>) secondary[i]) {
+                    if (!pair.isExpired(elapsed)) {
+                        first = values.isEmpty() ? pair.key : first;
+                        values.add(pair.value);
+                    }
+                }
+                if (!values.isEmpty()) {
+                    secondaryMap.put(first, values);
                 }
-                secondaryMap.put(list.getFirst().key, values);
             }
         }
-        return secondaryMap;
     }
 
     @Override
@@ -182,15 +1620,48 @@ public class TwoLevelHashTable<K, V> {
         return "Primary Table: " + java.util.Arrays.toString(primaryTable) + "\nSecondary Table: " + java.util.Arrays.toString(secondaryTable);
     }
 
-    private static class Pair<K, V> {
+    private static class Pair<K, V> implements Map.Entry<K, V> {
         K key;
         V value;
+        long expiresAt;
 
         Pair(K key, V value) {
             this.key = key;
             this.value = value;
         }
 
+        boolean isExpired(long elapsed) {
+            return expiresAt != 0 && expiresAt <= elapsed;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V previous = this.value;
+            this.value = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> entry
+                    && Objects.equals(key, entry.getKey()) && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
         @Override
         public String toString() {
             return "(" + key + ", " + value + ")";
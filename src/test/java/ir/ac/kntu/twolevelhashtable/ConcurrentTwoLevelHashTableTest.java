@@ -0,0 +1,84 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTwoLevelHashTableTest {
+    private ConcurrentTwoLevelHashTable<Integer, String> hashTable;
+
+    @BeforeEach
+    void setUp() {
+        hashTable = new ConcurrentTwoLevelHashTable<>(key -> key, 10);
+    }
+
+    @Test
+    void testInsertAndSearch() {
+        hashTable.insert(1, "one");
+        hashTable.insert(11, "eleven");
+        assertEquals("one", hashTable.get(1));
+        assertEquals("eleven", hashTable.search(11).getFirst());
+        assertNull(hashTable.search(21));
+        assertEquals(0.5, hashTable.getCollisionRate(), 0.001);
+    }
+
+    @Test
+    void testDelete() {
+        hashTable.insert(1, "one");
+        hashTable.insert(11, "eleven");
+        assertTrue(hashTable.delete(11));
+        assertFalse(hashTable.delete(21));
+        assertFalse(hashTable.containsKey(11));
+        assertTrue(hashTable.containsKey(1));
+        assertEquals(1, hashTable.size());
+    }
+
+    @Test
+    void testSetHashCipherKeepsEntries() {
+        for (int i = 0; i < 30; i++) {
+            hashTable.insert(i, "value" + i);
+        }
+        hashTable.setHashCipher(key -> key * 7);
+        assertEquals(30, hashTable.size());
+        for (int i = 0; i < 30; i++) {
+            assertEquals("value" + i, hashTable.get(i));
+        }
+    }
+
+    @Test
+    void testConcurrentWritersAndReaders() throws Exception {
+        ConcurrentTwoLevelHashTable<Integer, String> shared = new ConcurrentTwoLevelHashTable<>(key -> key, 64);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t * 1000;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    shared.insert(offset + i, "value" + (offset + i));
+                }
+            }));
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    shared.get(offset + i);
+                }
+            }));
+        }
+        futures.add(executor.submit(() -> shared.setHashCipher(key -> key * 31)));
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(4000, shared.size());
+        for (int i = 0; i < 4000; i++) {
+            assertEquals("value" + i, shared.get(i));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlatTwoLevelHashTableTest {
+    @Test
+    void testInsertSearchAndDelete() {
+        for (FlatTwoLevelHashTable.Layout layout : FlatTwoLevelHashTable.Layout.values()) {
+            FlatTwoLevelHashTable<Integer, String> table = new FlatTwoLevelHashTable<>(key -> key, 10, layout);
+            table.insert(1, "one");
+            table.insert(11, "eleven");
+            table.insert(11, "once");
+            table.insert(21, "twenty-one");
+
+            assertEquals("eleven", table.get(11), layout.name());
+            assertEquals(List.of("eleven", "once"), table.search(11));
+            assertTrue(table.containsKey(21));
+            assertNull(table.search(31));
+            assertEquals(0.75, table.getCollisionRate());
+
+            assertTrue(table.delete(11));
+            assertFalse(table.delete(11));
+            assertFalse(table.containsKey(11));
+            assertTrue(table.delete(1));
+            assertEquals("twenty-one", table.get(21));
+            assertEquals(1, table.size());
+        }
+    }
+
+    @Test
+    void testMatchesReferenceUnderRandomOperations() {
+        for (FlatTwoLevelHashTable.Layout layout : FlatTwoLevelHashTable.Layout.values()) {
+            FlatTwoLevelHashTable<Integer, Integer> table = new FlatTwoLevelHashTable<>(key -> key % 7, 64, layout);
+            Map<Integer, List<Integer>> reference = new HashMap<>();
+            Random random = new Random(7);
+            int size = 0;
+            for (int op = 0; op < 20000; op++) {
+                int key = random.nextInt(500);
+                if (random.nextInt(3) > 0) {
+                    table.insert(key, op);
+                    reference.computeIfAbsent(key, k -> new ArrayList<>()).add(op);
+                    size++;
+                } else {
+                    List<Integer> removed = reference.remove(key);
+                    assertEquals(removed != null, table.delete(key), layout.name());
+                    size -= removed == null ? 0 : removed.size();
+                }
+            }
+
+            assertEquals(size, table.size());
+            for (int key = 0; key < 500; key++) {
+                List<Integer> expected = reference.get(key);
+                LinkedList<Integer> actual = table.search(key);
+                if (expected == null) {
+                    assertNull(actual);
+                } else {
+                    assertEquals(expected.size(), actual.size());
+                    assertTrue(actual.containsAll(expected));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSetHashCipherKeepsEntries() {
+        for (FlatTwoLevelHashTable.Layout layout : FlatTwoLevelHashTable.Layout.values()) {
+            FlatTwoLevelHashTable<String, Integer> table = new FlatTwoLevelHashTable<>(key -> 0, 16, layout);
+            for (int i = 0; i < 100; i++) {
+                table.insert("key" + i, i);
+            }
+            table.setHashCipher(HashCipher.murmur3());
+            assertEquals(100, table.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, table.get("key" + i));
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashCipherTest {
+    private static final List<HashCipher<Integer>> CIPHERS = List.of(HashCipher.fibonacci(), HashCipher.murmur3(),
+            HashCipher.xxHash(), HashCipher.universal(7), HashCipher.tabulation(7));
+
+    @Test
+    void testIndexForNegativeHashes() {
+        assertEquals(7, HashCipher.indexFor(-1, 8));
+        assertEquals(9, HashCipher.indexFor(-1, 10));
+        assertEquals(3, HashCipher.indexFor(13, 10));
+    }
+
+    @Test
+    void testSequentialKeysSpreadAcrossPowerOfTwoBuckets() {
+        for (HashCipher<Integer> cipher : CIPHERS) {
+            int[] buckets = new int[128];
+            for (int key = 0; key < 128 * 8; key++) {
+                buckets[HashCipher.indexFor(cipher.hash(key * 128), 128)]++;
+            }
+            int used = 0;
+            int longest = 0;
+            for (int count : buckets) {
+                used += count > 0 ? 1 : 0;
+                longest = Math.max(longest, count);
+            }
+            assertTrue(used > 100, cipher + " used " + used + " buckets");
+            assertTrue(longest < 32, cipher + " longest chain " + longest);
+        }
+    }
+
+    @Test
+    void testReseedIsDeterministic() {
+        HashCipher<Integer> first = HashCipher.<Integer>murmur3().reseed(99);
+        HashCipher<Integer> second = HashCipher.<Integer>murmur3(99);
+        HashCipher<Integer> other = HashCipher.<Integer>murmur3(100);
+        int differences = 0;
+        for (int key = 0; key < 100; key++) {
+            assertEquals(first.hash(key), second.hash(key));
+            differences += first.hash(key) != other.hash(key) ? 1 : 0;
+        }
+        assertTrue(differences > 90);
+        assertEquals(HashCipher.tabulation(5).hash("key"), HashCipher.tabulation(1).reseed(5).hash("key"));
+    }
+
+    @Test
+    void testTableAcceptsNegativeHashes() {
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 10);
+        table.insert(-3, "minus three");
+        table.insert(-13, "minus thirteen");
+        assertEquals("minus three", table.get(-3));
+        assertEquals("minus thirteen", table.get(-13));
+
+        table.setHashCipher(HashCipher.murmur3());
+        assertEquals("minus thirteen", table.get(-13));
+    }
+}
@@ -0,0 +1,87 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntTwoLevelHashTableTest {
+    private IntTwoLevelHashTable<String> hashTable;
+
+    @BeforeEach
+    void setUp() {
+        hashTable = new IntTwoLevelHashTable<>(key -> key, 10);
+    }
+
+    @Test
+    void testInsertAndGet() {
+        hashTable.insert(1, "one");
+        hashTable.insert(11, "eleven");
+        hashTable.insert(21, "twenty-one");
+        assertEquals("one", hashTable.get(1));
+        assertEquals("eleven", hashTable.get(11));
+        assertEquals("twenty-one", hashTable.get(21));
+        assertNull(hashTable.get(31));
+        assertEquals(3, hashTable.size());
+    }
+
+    @Test
+    void testContainsKey() {
+        hashTable.insert(2, "two");
+        hashTable.insert(12, "twelve");
+        assertTrue(hashTable.containsKey(2));
+        assertTrue(hashTable.containsKey(12));
+        assertFalse(hashTable.containsKey(22));
+    }
+
+    @Test
+    void testDeleteFromBothLevels() {
+        hashTable.insert(3, "three");
+        hashTable.insert(13, "thirteen");
+        hashTable.insert(23, "twenty-three");
+
+        assertTrue(hashTable.delete(3));
+        assertTrue(hashTable.delete(23));
+        assertFalse(hashTable.delete(33));
+        assertNull(hashTable.get(3));
+        assertNull(hashTable.get(23));
+        assertEquals("thirteen", hashTable.get(13));
+        assertEquals(1, hashTable.size());
+    }
+
+    @Test
+    void testNegativeKeys() {
+        hashTable.insert(-7, "minus seven");
+        assertEquals("minus seven", hashTable.get(-7));
+    }
+
+    @Test
+    void testCollisionRate() {
+        hashTable.insert(3, "three");
+        hashTable.insert(13, "thirteen");
+        hashTable.insert(23, "twenty-three");
+        assertEquals(2.0 / 3.0, hashTable.getCollisionRate(), 0.001);
+    }
+
+    @Test
+    void testSetHashCipher() {
+        for (int i = 0; i < 50; i++) {
+            hashTable.insert(i, "value" + i);
+        }
+        hashTable.setHashCipher(key -> key * 31);
+        assertEquals(50, hashTable.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("value" + i, hashTable.get(i));
+        }
+    }
+
+    @Test
+    void testClear() {
+        hashTable.insert(5, "five");
+        hashTable.insert(15, "fifteen");
+        hashTable.clear();
+        assertNull(hashTable.get(5));
+        assertEquals(0, hashTable.size());
+        assertEquals(0, hashTable.getCollisionRate(), 0.001);
+    }
+}
@@ -0,0 +1,51 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(99));
+        assertEquals(0, histogram.getMeanNanos(), 0.001);
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 20; i++) {
+            histogram.record(i);
+        }
+        assertEquals(20, histogram.getCount());
+        assertEquals(10, histogram.getPercentileNanos(50));
+        assertEquals(20, histogram.getPercentileNanos(100));
+        assertEquals(10.5, histogram.getMeanNanos(), 0.001);
+    }
+
+    @Test
+    void testLargeValuesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1000);
+        }
+        long p50 = histogram.getPercentileNanos(50);
+        long p99 = histogram.getPercentileNanos(99);
+        assertEquals(50_000_000, p50, 50_000_000 * 0.04);
+        assertEquals(99_000_000, p99, 99_000_000 * 0.04);
+        assertEquals(100_000_000, histogram.getMaxNanos());
+    }
+
+    @Test
+    void testResetAndCopy() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(500);
+        LatencyHistogram copy = histogram.copy();
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(1, copy.getCount());
+    }
+}
@@ -0,0 +1,96 @@
+package ir.ac.kntu.twolevelhashtable.table;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerfectTwoLevelHashTableTest {
+
+    @Test
+    void testGetReturnsEveryValue() {
+        Map<Integer, String> entries = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            entries.put(i * 7, "value" + i);
+        }
+        PerfectTwoLevelHashTable<Integer, String> table = new PerfectTwoLevelHashTable<>(key -> key, entries, new Random(42));
+
+        assertEquals(1000, table.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("value" + i, table.get(i * 7));
+        }
+    }
+
+    @Test
+    void testMissingKey() {
+        PerfectTwoLevelHashTable<Integer, String> table = new PerfectTwoLevelHashTable<>(Map.of(1, "one", 2, "two"));
+        assertNull(table.get(3));
+        assertFalse(table.containsKey(3));
+        assertTrue(table.containsKey(1));
+    }
+
+    @Test
+    void testSecondaryCapacityIsLinear() {
+        Map<Integer, String> entries = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            entries.put(i, "value" + i);
+        }
+        PerfectTwoLevelHashTable<Integer, String> table = new PerfectTwoLevelHashTable<>(entries);
+        assertEquals(500, table.getCapacity());
+        assertTrue(table.getSecondaryCapacity() <= 4 * 500);
+    }
+
+    @Test
+    void testEmptyTable() {
+        PerfectTwoLevelHashTable<Integer, String> table = new PerfectTwoLevelHashTable<>(Map.of());
+        assertEquals(0, table.size());
+        assertNull(table.get(1));
+    }
+
+    @Test
+    void testKeysWithEqualHashesShareASlot() {
+        Map<Integer, String> entries = Map.of(1, "one", 2, "two");
+        PerfectTwoLevelHashTable<Integer, String> table = new PerfectTwoLevelHashTable<>(key -> 0, entries);
+        assertEquals("one", table.get(1));
+        assertEquals("two", table.get(2));
+        assertNull(table.get(3));
+        assertFalse(table.containsKey(3));
+        assertEquals(1, table.getCapacity());
+    }
+
+    @Test
+    void testManyCollidingKeysBuildQuickly() {
+        Map<Integer, String> entries = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            entries.put(i, "value" + i);
+        }
+        PerfectTwoLevelHashTable<Integer, String> table = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> new PerfectTwoLevelHashTable<>(key -> key % 10, entries));
+        assertEquals(100, table.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value" + i, table.get(i));
+        }
+        assertNull(table.get(100));
+    }
+
+    @Test
+    void testStringsWithEqualHashCodes() {
+        Map<String, Integer> entries = Map.of("Aa", 1, "BB", 2, "AaAa", 3, "BBBB", 4, "AaBB", 5, "x", 6);
+        PerfectTwoLevelHashTable<String, Integer> table = new PerfectTwoLevelHashTable<>(entries);
+        entries.forEach((key, value) -> assertEquals(value, table.get(key)));
+        assertFalse(table.containsKey("BBAa0"));
+    }
+
+    @Test
+    void testFullRangeHashesAreDistinct() {
+        Map<Integer, String> entries = Map.of(0, "zero", Integer.MAX_VALUE, "max", -1, "minus one");
+        PerfectTwoLevelHashTable<Integer, String> table = new PerfectTwoLevelHashTable<>(key -> key, entries);
+        assertEquals("zero", table.get(0));
+        assertEquals("max", table.get(Integer.MAX_VALUE));
+        assertEquals("minus one", table.get(-1));
+    }
+}
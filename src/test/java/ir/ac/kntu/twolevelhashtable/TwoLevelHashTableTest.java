@@ -1,11 +1,21 @@
 package ir.ac.kntu.twolevelhashtable.table;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -182,4 +192,692 @@ public class TwoLevelHashTableTest {
         assertNotNull(hashTable.search(1));
         assertNotNull(hashTable.search(11));
     }
+
+    @Test
+    void testResizingGrowsCapacity() {
+        TwoLevelHashTable<Integer, String> resizable = new TwoLevelHashTable<>(key -> key, 4, 0.75, 0.1);
+        for (int i = 0; i < 100; i++) {
+            resizable.insert(i, "value" + i);
+        }
+        assertTrue(resizable.getCapacity() >= 64);
+        assertEquals(100, resizable.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value" + i, resizable.search(i).getFirst());
+        }
+    }
+
+    @Test
+    void testSearchAndDeleteDuringRehash() {
+        TwoLevelHashTable<Integer, String> resizable = new TwoLevelHashTable<>(key -> key, 16, 1.0, 0);
+        for (int i = 0; i <= 16; i++) {
+            resizable.insert(i, "value" + i);
+        }
+        assertTrue(resizable.isRehashing());
+        assertEquals(32, resizable.getCapacity());
+        for (int i = 0; i <= 16; i++) {
+            assertNotNull(resizable.search(i));
+        }
+
+        resizable.delete(15);
+        assertNull(resizable.search(15));
+        assertEquals(16, resizable.size());
+        assertEquals(16, resizable.getPrimaryTable().size());
+    }
+
+    @Test
+    void testResizingShrinksCapacity() {
+        TwoLevelHashTable<Integer, String> resizable = new TwoLevelHashTable<>(key -> key, 4, 0.75, 0.25);
+        for (int i = 0; i < 64; i++) {
+            resizable.insert(i, "value" + i);
+        }
+        int grownCapacity = resizable.getCapacity();
+        for (int i = 0; i < 62; i++) {
+            resizable.delete(i);
+        }
+        assertTrue(resizable.getCapacity() < grownCapacity);
+        assertTrue(resizable.getCapacity() >= 4);
+        assertEquals(2, resizable.size());
+        assertNotNull(resizable.search(62));
+        assertNotNull(resizable.search(63));
+    }
+
+    @Test
+    void testFixedCapacityWithoutLoadFactor() {
+        for (int i = 0; i < 100; i++) {
+            hashTable.insert(i, "value" + i);
+        }
+        assertEquals(10, hashTable.getCapacity());
+        assertFalse(hashTable.isRehashing());
+        assertEquals(100, hashTable.size());
+    }
+
+    @Test
+    void testGetReturnsFirstValue() {
+        hashTable.insert(4, "four");
+        hashTable.insert(14, "fourteen");
+        hashTable.insert(4, "four again");
+        assertEquals("four", hashTable.get(4));
+        assertEquals("fourteen", hashTable.get(14));
+        assertNull(hashTable.get(24));
+    }
+
+    @Test
+    void testContainsKeyWithNullValue() {
+        hashTable.insert(6, null);
+        assertTrue(hashTable.containsKey(6));
+        assertNull(hashTable.get(6));
+    }
+
+    @Test
+    void testForEachValue() {
+        hashTable.insert(7, "seven");
+        hashTable.insert(17, "seventeen");
+        hashTable.insert(7, "seven again");
+
+        List<String> values = new ArrayList<>();
+        assertEquals(2, hashTable.forEachValue(7, values::add));
+        assertEquals(List.of("seven", "seven again"), values);
+        assertEquals(0, hashTable.forEachValue(27, values::add));
+    }
+
+    @Test
+    void testLookupInto() {
+        hashTable.insert(8, "eight");
+        hashTable.insert(8, "eight again");
+
+        List<String> sink = new ArrayList<>();
+        assertEquals(2, hashTable.lookupInto(8, sink));
+        assertEquals(0, hashTable.lookupInto(18, sink));
+        assertEquals(List.of("eight", "eight again"), sink);
+    }
+
+    @Test
+    void testMigrateHashCipherIncrementally() {
+        for (int i = 0; i < 30; i++) {
+            hashTable.insert(i, "value" + i);
+        }
+        hashTable.migrateHashCipher(key -> key * 7);
+        assertTrue(hashTable.isRehashing());
+
+        while (hashTable.rehashStep(1)) {
+            for (int i = 0; i < 30; i++) {
+                assertEquals("value" + i, hashTable.get(i));
+            }
+        }
+        assertEquals(30, hashTable.size());
+        assertEquals(10, hashTable.getPrimaryTable().size());
+    }
+
+    @Test
+    void testMutationsDuringCipherMigration() {
+        hashTable.insert(1, "one");
+        hashTable.insert(2, "two");
+        hashTable.migrateHashCipher(key -> key + 5);
+
+        hashTable.insert(3, "three");
+        assertTrue(hashTable.delete(1));
+        assertNull(hashTable.search(1));
+        assertEquals("two", hashTable.get(2));
+        assertEquals("three", hashTable.get(3));
+
+        hashTable.completeRehash();
+        assertFalse(hashTable.isRehashing());
+        assertEquals(2, hashTable.size());
+    }
+
+    @Test
+    void testMetricsReflectLiveContents() {
+        hashTable.insert(1, "one");
+        hashTable.insert(11, "eleven");
+        hashTable.insert(21, "twenty-one");
+        hashTable.insert(2, "two");
+
+        TableMetrics metrics = hashTable.getMetrics();
+        assertEquals(4, metrics.getSize());
+        assertEquals(0.4, metrics.getLoadFactor(), 0.001);
+        assertEquals(2, metrics.getMaxChainLength());
+        assertEquals(2, metrics.getOverflowEntries());
+        assertEquals(9, metrics.getChainLengthHistogram()[0]);
+
+        hashTable.delete(11);
+        hashTable.delete(21);
+        metrics = hashTable.getMetrics();
+        assertEquals(0, metrics.getOverflowEntries());
+        assertEquals(0, metrics.getMaxChainLength());
+    }
+
+    @Test
+    void testProbeCounts() {
+        hashTable.insert(1, "one");
+        hashTable.insert(11, "eleven");
+        hashTable.insert(21, "twenty-one");
+
+        hashTable.get(1);
+        hashTable.get(21);
+        hashTable.get(31);
+        hashTable.get(5);
+
+        TableMetrics metrics = hashTable.getMetrics();
+        assertEquals(2, metrics.getSuccessfulSearches());
+        assertEquals(2.0, metrics.getAverageSuccessfulProbes(), 0.001);
+        assertEquals(2, metrics.getUnsuccessfulSearches());
+        assertEquals(1.5, metrics.getAverageUnsuccessfulProbes(), 0.001);
+
+        hashTable.insert(4, "four");
+        hashTable.resetMetrics();
+        assertEquals(List.of("four"), hashTable.search(4));
+        assertEquals(1.0, hashTable.getMetrics().getAverageSuccessfulProbes(), 0.001);
+
+        assertEquals(List.of("twenty-one"), hashTable.search(21));
+        metrics = hashTable.getMetrics();
+        assertEquals(2, metrics.getSuccessfulSearches());
+        assertEquals(2.0, metrics.getAverageSuccessfulProbes(), 0.001);
+    }
+
+    @Test
+    void testLatencyTracking() {
+        hashTable.insert(1, "one");
+        assertEquals(0, hashTable.getMetrics().getInsertLatency().getCount());
+
+        hashTable.setLatencyTracking(true);
+        hashTable.insert(2, "two");
+        hashTable.search(2);
+        hashTable.delete(2);
+        TableMetrics metrics = hashTable.getMetrics();
+        assertEquals(1, metrics.getInsertLatency().getCount());
+        assertEquals(1, metrics.getSearchLatency().getCount());
+        assertEquals(1, metrics.getDeleteLatency().getCount());
+    }
+
+    @Test
+    void testJsonRoundTrip() throws IOException {
+        hashTable.insert(1, "one");
+        hashTable.insert(11, "eleven");
+        hashTable.insert(11, "eleven again");
+        hashTable.insert(2, null);
+
+        ObjectMapper mapper = new ObjectMapper();
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = mapper.createGenerator(json)) {
+            hashTable.writeJson(generator);
+        }
+
+        TwoLevelHashTable<Integer, String> restored = new TwoLevelHashTable<>(key -> key, 10);
+        try (JsonParser parser = mapper.createParser(json.toString())) {
+            assertEquals(4, restored.readJson(parser, Integer.class, String.class));
+        }
+        assertEquals("one", restored.get(1));
+        assertEquals(List.of("eleven", "eleven again"), restored.search(11));
+        assertTrue(restored.containsKey(2));
+        assertEquals(4, restored.size());
+    }
+
+    @Test
+    void testReadJsonInChunksAndMoveFrom() throws IOException {
+        TwoLevelHashTable<Integer, String> source = new TwoLevelHashTable<>(key -> key, 16, 0.75, 0);
+        for (int i = 0; i < 10000; i++) {
+            source.insert(i, "value" + i);
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = mapper.createGenerator(json)) {
+            source.writeJson(generator);
+        }
+
+        TwoLevelHashTable<Integer, String> scratch = new TwoLevelHashTable<>(key -> key, 16, 0.75, 0);
+        try (JsonParser parser = mapper.createParser(json.toString())) {
+            assertEquals(10000, scratch.readJson(parser, Integer.class, String.class));
+        }
+        assertEquals(10000, scratch.size());
+        assertEquals(16384, scratch.getCapacity());
+
+        hashTable.insert(5, "replaced");
+        hashTable.moveFrom(scratch);
+        assertEquals(10000, hashTable.size());
+        assertEquals(16384, hashTable.getCapacity());
+        assertEquals(List.of("value5"), hashTable.search(5));
+        assertEquals("value9999", hashTable.get(9999));
+        assertEquals(0, scratch.size());
+        assertNull(scratch.get(5));
+        scratch.insert(5, "five");
+        assertEquals("five", scratch.get(5));
+        assertEquals(List.of("value5"), hashTable.search(5));
+    }
+
+    @Test
+    void testReadLegacyJson() throws IOException {
+        String json = "{\"secondaryTable\":{\"11\":[\"eleven\",\"twenty-one\"]},\"primaryTable\":{\"1\":\"one\"}}";
+        try (JsonParser parser = new ObjectMapper().createParser(json)) {
+            assertEquals(3, hashTable.readJson(parser, Integer.class, String.class));
+        }
+        assertEquals("one", hashTable.get(1));
+        assertEquals(2, hashTable.search(11).size());
+    }
+
+    @Test
+    void testChangeListenerReportsBuckets() {
+        List<Integer> changed = new ArrayList<>();
+        int[] rebuilds = new int[1];
+        hashTable.addChangeListener(new TableChangeListener() {
+            @Override
+            public void bucketChanged(int index) {
+                changed.add(index);
+            }
+
+            @Override
+            public void tableRebuilt() {
+                rebuilds[0]++;
+            }
+        });
+
+        hashTable.insert(3, "three");
+        hashTable.insert(13, "thirteen");
+        hashTable.delete(13);
+        hashTable.delete(4);
+        assertEquals(List.of(3, 3, 3), changed);
+
+        hashTable.clear();
+        assertEquals(1, rebuilds[0]);
+    }
+
+    @Test
+    void testForEachInBucket() {
+        hashTable.insert(3, "three");
+        hashTable.insert(13, "thirteen");
+        hashTable.insert(4, "four");
+
+        List<Integer> keys = new ArrayList<>();
+        hashTable.forEachInBucket(hashTable.bucketIndex(3), (key, value) -> keys.add(key));
+        assertEquals(List.of(3, 13), keys);
+
+        assertEquals(3, hashTable.primaryEntryAt(hashTable.bucketIndex(3)).getKey());
+        assertNull(hashTable.primaryEntryAt(hashTable.bucketIndex(5)));
+        List<Integer> chain = new ArrayList<>();
+        hashTable.forEachInChain(hashTable.bucketIndex(3), (key, value) -> chain.add(key));
+        assertEquals(List.of(13), chain);
+    }
+
+    @Test
+    void testBulkLoadMatchesSequentialInserts() {
+        TwoLevelHashTable<Integer, String> sequential = new TwoLevelHashTable<>(key -> key, 10);
+        List<Map.Entry<Integer, String>> entries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            entries.add(Map.entry(i % 17, "value" + i));
+            sequential.insert(i % 17, "value" + i);
+        }
+
+        hashTable.insert(3, "existing");
+        sequential.clear();
+        sequential.insert(3, "existing");
+        for (Map.Entry<Integer, String> entry : entries) {
+            sequential.insert(entry.getKey(), entry.getValue());
+        }
+        hashTable.bulkLoad(entries);
+
+        assertEquals(sequential.size(), hashTable.size());
+        assertEquals(sequential.getCollisionRate(), hashTable.getCollisionRate(), 1e-9);
+        for (int bucket = 0; bucket < 10; bucket++) {
+            List<String> expected = new ArrayList<>();
+            List<String> actual = new ArrayList<>();
+            sequential.forEachInBucket(bucket, (key, value) -> expected.add(key + "=" + value));
+            hashTable.forEachInBucket(bucket, (key, value) -> actual.add(key + "=" + value));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testParallelBulkLoadPresizes() {
+        List<Map.Entry<Integer, String>> entries = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            entries.add(Map.entry(i, "value" + i));
+        }
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 16, 0.75, 0);
+        table.bulkLoad(entries, true);
+
+        assertFalse(table.isRehashing());
+        assertEquals(16384, table.getCapacity());
+        assertEquals(10000, table.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals("value" + i, table.get(i));
+        }
+
+        TwoLevelHashTable<Integer, String> fixed = TwoLevelHashTable.fromEntries(key -> key, 10, entries);
+        assertEquals(10, fixed.getCapacity());
+        assertEquals(10000, fixed.size());
+        assertEquals("value9999", fixed.get(9999));
+    }
+
+    @Test
+    void testParallelRebuildExportAndAggregates() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 20000);
+            for (int i = 0; i < 30000; i++) {
+                table.insert(i, i % 3 == 0 ? "fizz" : "value" + i);
+            }
+            Map<Integer, String> primary = table.getPrimaryTable();
+            Map<Integer, LinkedList<String>> secondary = table.getSecondaryTable();
+            assertEquals(primary, table.getPrimaryTable(pool));
+            assertEquals(secondary, table.getSecondaryTable(pool));
+            assertEquals(10000, table.count((key, value) -> "fizz".equals(value), pool));
+            assertEquals(table.filterValues(value -> value.endsWith("7")), table.filterValues(value -> value.endsWith("7"), pool));
+
+            TwoLevelHashTable<Integer, String> sequential = new TwoLevelHashTable<>(key -> key, 20000);
+            table.forEach(sequential::insert);
+            sequential.setHashCipher(key -> key / 3);
+            table.setHashCipher(key -> key / 3, pool);
+            assertEquals(sequential.getCollisionRate(), table.getCollisionRate(), 1e-9);
+            assertEquals(sequential.getSecondaryTable(), table.getSecondaryTable(pool));
+            assertEquals("value29999", table.get(29999));
+
+            table.clear(pool);
+            assertEquals(0, table.size());
+            assertNull(table.get(1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testIterationAndStreams() {
+        hashTable.insert(3, "three");
+        hashTable.insert(13, "thirteen");
+        hashTable.insert(4, "four");
+
+        List<Integer> keys = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : hashTable) {
+            keys.add(entry.getKey());
+        }
+        assertEquals(List.of(3, 13, 4), keys);
+        assertEquals(List.of("three", "thirteen", "four"), hashTable.values().collect(Collectors.toList()));
+
+        hashTable.entries().filter(entry -> entry.getKey() == 13).forEach(entry -> entry.setValue("updated"));
+        assertEquals("updated", hashTable.get(13));
+    }
+
+    @Test
+    void testParallelStreamCoversBothGenerations() {
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 10);
+        for (int i = 0; i < 20000; i++) {
+            table.insert(i, "value" + i);
+        }
+        table.migrateHashCipher(key -> key * 7);
+        table.rehashStep(3);
+        assertTrue(table.isRehashing());
+
+        assertEquals(20000, table.keys().parallel().distinct().count());
+        assertEquals(199990000L, table.keys().parallel().mapToLong(Integer::longValue).sum());
+    }
+
+    @Test
+    void testReseedsWhenFlooded() {
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 16, 1.0, 0);
+        table.setMaxChainLength(8, 3);
+        for (int i = 0; i < 1000; i++) {
+            table.insert(i << 16, "value" + i);
+        }
+
+        assertTrue(table.getReseedCount() >= 1 && table.getReseedCount() <= 3);
+        assertTrue(table.getHashCipher() instanceof HashCipher);
+        assertTrue(table.getMetrics().getMaxChainLength() <= 8);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("value" + i, table.get(i << 16));
+        }
+    }
+
+    @Test
+    void testDuplicateKeysDoNotTriggerReseed() {
+        hashTable.setMaxChainLength(4, 3);
+        for (int i = 0; i < 20; i++) {
+            hashTable.insert(5, "five" + i);
+        }
+        assertEquals(0, hashTable.getReseedCount());
+        assertEquals(20, hashTable.search(5).size());
+    }
+
+    @Test
+    void testEqualHashCodesDoNotTriggerReseed() {
+        List<String> keys = new ArrayList<>(List.of(""));
+        for (int round = 0; round < 7; round++) {
+            List<String> longer = new ArrayList<>();
+            for (String key : keys) {
+                longer.add(key + "Aa");
+                longer.add(key + "BB");
+            }
+            keys = longer;
+        }
+
+        TwoLevelHashTable<String, Integer> table = new TwoLevelHashTable<>(HashCipher.murmur3(), 16);
+        table.setMaxChainLength(8, 3);
+        for (int i = 0; i < keys.size(); i++) {
+            table.insert(keys.get(i), i);
+        }
+        assertEquals(0, table.getReseedCount());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i, table.get(keys.get(i)));
+        }
+    }
+
+    @Test
+    void testBatchOperationsMatchSingleCalls() {
+        TwoLevelHashTable<Integer, String> sequential = new TwoLevelHashTable<>(key -> key, 10);
+        List<Map.Entry<Integer, String>> entries = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            entries.add(Map.entry(i * 7 % 23, "value" + i));
+            sequential.insert(i * 7 % 23, "value" + i);
+        }
+        hashTable.insertAll(entries);
+
+        assertEquals(sequential.size(), hashTable.size());
+        assertEquals(sequential.getCollisionRate(), hashTable.getCollisionRate());
+        for (int bucket = 0; bucket < 10; bucket++) {
+            List<String> expected = new ArrayList<>();
+            List<String> actual = new ArrayList<>();
+            sequential.forEachInBucket(bucket, (key, value) -> expected.add(key + "=" + value));
+            hashTable.forEachInBucket(bucket, (key, value) -> actual.add(key + "=" + value));
+            assertEquals(expected, actual);
+        }
+
+        List<LinkedList<String>> found = hashTable.searchAll(List.of(14, 99, 0, 14));
+        assertEquals(sequential.search(14), found.get(0));
+        assertNull(found.get(1));
+        assertEquals(sequential.search(0), found.get(2));
+        assertEquals(found.get(0), found.get(3));
+
+        int expectedRemoved = sequential.search(3).size() + sequential.search(13).size();
+        assertEquals(expectedRemoved, hashTable.deleteAll(List.of(3, 13, 99)));
+        assertNull(hashTable.search(3));
+        assertNull(hashTable.search(13));
+        assertEquals(40 - expectedRemoved, hashTable.size());
+    }
+
+    @Test
+    void testBatchOperationsMigrateOnlyTouchedBuckets() {
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 64);
+        for (int i = 0; i < 64; i++) {
+            table.insert(i, "value" + i);
+        }
+        table.migrateHashCipher(key -> key * 31);
+
+        List<LinkedList<String>> found = table.searchAll(List.of(40, 40, 63, 100));
+        assertTrue(table.isRehashing());
+        assertEquals(List.of("value40"), found.get(0));
+        assertEquals(found.get(0), found.get(1));
+        assertNotSame(found.get(0), found.get(1));
+        assertEquals(List.of("value63"), found.get(2));
+        assertNull(found.get(3));
+        assertEquals(3, table.getMetrics().getSuccessfulSearches() + table.getMetrics().getUnsuccessfulSearches());
+
+        assertEquals(2, table.deleteAll(List.of(50, 60, 100)));
+        table.insertAll(List.of(Map.entry(70, "seventy")));
+        assertTrue(table.isRehashing());
+        table.completeRehash();
+        assertEquals(63, table.size());
+        assertNull(table.get(50));
+        assertEquals("value40", table.get(40));
+        assertEquals("seventy", table.get(70));
+
+        table.resetMetrics();
+        table.searchAll(List.of(7, 7));
+        assertEquals(1, table.getMetrics().getSuccessfulSearches());
+        assertEquals(1.0, table.getMetrics().getAverageSuccessfulProbes(), 0.001);
+    }
+
+    @Test
+    void testInsertAllGrowsOnceWhenOverLoaded() {
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 16, 0.75, 0);
+        List<Map.Entry<Integer, String>> entries = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            entries.add(Map.entry(i, "value" + i));
+        }
+        table.insertAll(entries);
+
+        assertFalse(table.isRehashing());
+        assertEquals(2048, table.getCapacity());
+        assertEquals(1000, table.size());
+        assertEquals("value500", table.get(500));
+    }
+
+    @Test
+    void testExpiredEntriesLeaveChainsAndCollisions() {
+        long[] now = {0};
+        hashTable.setClock(() -> now[0]);
+        hashTable.insert(1, "one", 100, TimeUnit.MILLISECONDS);
+        hashTable.insert(11, "eleven");
+        hashTable.insert(2, "two", 100, TimeUnit.MILLISECONDS);
+        assertEquals(List.of("one"), hashTable.search(1));
+
+        now[0] = TimeUnit.MILLISECONDS.toNanos(150);
+        assertNull(hashTable.search(1));
+        assertEquals(11, hashTable.primaryEntryAt(1).getKey());
+        assertNull(hashTable.getSecondaryTable().get(11));
+
+        hashTable.insert(12, "twelve");
+        assertEquals(12, hashTable.primaryEntryAt(2).getKey());
+        assertEquals(0, hashTable.getCollisionRate(), 0.001);
+        assertEquals(2, hashTable.size());
+        assertEquals(2, hashTable.getExpiredCount());
+    }
+
+    @Test
+    void testBatchInsertsDropExpiredEntries() {
+        long[] now = {0};
+        hashTable.setClock(() -> now[0]);
+        hashTable.insert(1, "one", 100, TimeUnit.MILLISECONDS);
+        hashTable.insert(11, "eleven", 100, TimeUnit.MILLISECONDS);
+        hashTable.insert(2, "two", 100, TimeUnit.MILLISECONDS);
+
+        now[0] = TimeUnit.MILLISECONDS.toNanos(150);
+        hashTable.insertAll(List.of(Map.entry(21, "twenty-one"), Map.entry(31, "thirty-one")));
+        assertEquals(21, hashTable.primaryEntryAt(1).getKey());
+        assertEquals(List.of("thirty-one"), hashTable.getSecondaryTable().get(31));
+        assertEquals(3, hashTable.size());
+        assertEquals(2, hashTable.getExpiredCount());
+
+        hashTable.bulkLoad(List.of(Map.entry(12, "twelve")));
+        assertEquals(12, hashTable.primaryEntryAt(2).getKey());
+        assertEquals(3, hashTable.size());
+        assertEquals(3, hashTable.getExpiredCount());
+        assertEquals(1, hashTable.getMetrics().getOverflowEntries());
+    }
+
+    @Test
+    void testSnapshotsSkipExpiredEntries() throws IOException {
+        long[] now = {0};
+        hashTable.setClock(() -> now[0]);
+        hashTable.insert(1, "session", 100, TimeUnit.MILLISECONDS);
+        hashTable.insert(11, "kept");
+        hashTable.insert(21, "chained", 100, TimeUnit.MILLISECONDS);
+        now[0] = TimeUnit.MILLISECONDS.toNanos(150);
+
+        assertEquals(List.of(11), hashTable.keys().toList());
+        assertEquals(1, hashTable.count((key, value) -> true));
+        assertEquals(Map.of(), hashTable.getPrimaryTable());
+        assertEquals(Map.of(11, new LinkedList<>(List.of("kept"))), hashTable.getSecondaryTable());
+        assertNull(hashTable.primaryEntryAt(1));
+        List<Integer> bucket = new ArrayList<>();
+        hashTable.forEachInBucket(1, (key, value) -> bucket.add(key));
+        assertEquals(List.of(11), bucket);
+
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = new ObjectMapper().getFactory().createGenerator(json)) {
+            hashTable.writeJson(generator);
+        }
+        assertFalse(json.toString().contains("session"));
+        assertFalse(json.toString().contains("chained"));
+    }
+
+    @Test
+    void testExpireEntriesSweepsOnlyDueEntries() {
+        long[] now = {0};
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 64, 0.75, 0);
+        table.setClock(() -> now[0]);
+        for (int i = 1; i <= 1000; i++) {
+            table.insert(i, "value" + i, i, TimeUnit.MILLISECONDS);
+        }
+        table.insert(-1, "hours", 10, TimeUnit.HOURS);
+        table.insert(-2, "days", 3, TimeUnit.DAYS);
+        table.insert(-3, "forever");
+
+        now[0] = TimeUnit.MILLISECONDS.toNanos(500);
+        assertEquals(500, table.expireEntries());
+        assertEquals(0, table.expireEntries());
+        assertNull(table.get(500));
+        assertEquals("value501", table.get(501));
+
+        now[0] = TimeUnit.HOURS.toNanos(11);
+        assertEquals(501, table.expireEntries());
+        assertEquals("days", table.get(-2));
+
+        now[0] = TimeUnit.DAYS.toNanos(3);
+        assertEquals(1, table.expireEntries());
+        assertEquals(1, table.size());
+        assertEquals("forever", table.get(-3));
+    }
+
+    @Test
+    void testHugeTtlNeverExpires() {
+        long[] now = {0};
+        hashTable.setClock(() -> now[0]);
+        hashTable.insert(1, "one", 1, TimeUnit.MILLISECONDS);
+
+        now[0] = TimeUnit.DAYS.toNanos(1);
+        hashTable.insert(2, "nanos", Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        hashTable.insert(3, "days", Long.MAX_VALUE, TimeUnit.DAYS);
+        assertEquals("nanos", hashTable.get(2));
+        assertEquals("days", hashTable.get(3));
+
+        now[0] = TimeUnit.DAYS.toNanos(10000);
+        assertEquals(1, hashTable.expireEntries());
+        assertEquals("nanos", hashTable.get(2));
+        assertEquals("days", hashTable.get(3));
+    }
+
+    @Test
+    void testExpirySweeperRemovesEntriesInBackground() throws InterruptedException {
+        ReentrantLock lock = new ReentrantLock();
+        lock.lock();
+        try {
+            for (int i = 0; i < 100; i++) {
+                hashTable.insert(i, "value" + i, 20, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try (ExpirySweeper sweeper = new ExpirySweeper(hashTable, lock, 5, TimeUnit.MILLISECONDS)) {
+            long expired = 0;
+            for (int i = 0; i < 400 && expired < 100; i++) {
+                Thread.sleep(10);
+                lock.lock();
+                try {
+                    expired = hashTable.getExpiredCount();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            assertEquals(100, expired);
+        }
+        assertEquals(0, hashTable.size());
+    }
 }
@@ -0,0 +1,169 @@
+package ir.ac.kntu.twolevelhashtable.cache;
+
+import ir.ac.kntu.twolevelhashtable.storage.ByteCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedTableTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReadThroughAndMetrics() throws IOException {
+        MemoryStore store = new MemoryStore();
+        store.values.put(1, "one");
+        try (CachedTable<Integer, String> cache = new CachedTable<>(store, 10, EvictionPolicy.LRU, 100, 0)) {
+            assertEquals("one", cache.get(1));
+            assertEquals("one", cache.get(1));
+            assertNull(cache.get(2));
+
+            CacheMetrics metrics = cache.getMetrics();
+            assertEquals(1, metrics.getHits());
+            assertEquals(2, metrics.getMisses());
+            assertEquals(1, metrics.getLoads());
+            assertEquals(1, metrics.getSize());
+            assertEquals(2, store.loads);
+        }
+    }
+
+    @Test
+    void testEvictionPolicies() throws IOException {
+        MemoryStore store = new MemoryStore();
+        try (CachedTable<Integer, String> lru = new CachedTable<>(store, 2, EvictionPolicy.LRU, 100, 0)) {
+            lru.put(1, "one");
+            lru.put(2, "two");
+            lru.get(1);
+            lru.put(3, "three");
+            assertEquals(2, lru.size());
+            assertEquals(1, lru.getMetrics().getEvictions());
+
+            long hits = lru.getMetrics().getHits();
+            lru.get(1);
+            lru.get(3);
+            assertEquals(hits + 2, lru.getMetrics().getHits());
+        }
+
+        try (CachedTable<Integer, String> clock = new CachedTable<>(store, 3, EvictionPolicy.CLOCK, 100, 0)) {
+            clock.put(1, "one");
+            clock.put(2, "two");
+            clock.put(3, "three");
+            clock.get(1);
+            clock.put(4, "four");
+            assertEquals(3, clock.size());
+
+            long misses = clock.getMetrics().getMisses();
+            clock.get(1);
+            clock.get(4);
+            assertEquals(misses, clock.getMetrics().getMisses());
+            assertEquals("two", clock.get(2));
+            assertEquals(misses + 1, clock.getMetrics().getMisses());
+        }
+    }
+
+    @Test
+    void testWriteBehindCoalescesAndServesPendingWrites() throws IOException {
+        MemoryStore store = new MemoryStore();
+        store.values.put(2, "stored");
+        try (CachedTable<Integer, String> cache = new CachedTable<>(store, 1, EvictionPolicy.LRU, 100, 0)) {
+            cache.put(1, "a");
+            cache.put(1, "b");
+            cache.delete(2);
+            cache.put(3, "c");
+            assertEquals(0, store.batches);
+            assertEquals(3, cache.getMetrics().getPendingWrites());
+
+            assertEquals("b", cache.get(1));
+            assertNull(cache.get(2));
+            assertEquals(0, store.loads);
+
+            cache.flush();
+            assertEquals(1, store.batches);
+            assertEquals(Map.of(1, "b", 3, "c"), store.values);
+            assertEquals(3, cache.getMetrics().getFlushedWrites());
+            assertEquals(0, cache.getMetrics().getPendingWrites());
+        }
+    }
+
+    @Test
+    void testFailedFlushKeepsWritesAndBatchSizeTriggersFlush() throws Exception {
+        MemoryStore store = new MemoryStore();
+        store.failures = 1;
+        try (CachedTable<Integer, String> cache = new CachedTable<>(store, 10, EvictionPolicy.CLOCK, 3, 0)) {
+            cache.put(1, "one");
+            assertThrows(IOException.class, cache::flush);
+            assertEquals(1, cache.getMetrics().getFlushFailures());
+            assertEquals(1, cache.getMetrics().getPendingWrites());
+
+            cache.put(2, "two");
+            cache.put(3, "three");
+            for (int i = 0; i < 500 && cache.getMetrics().getFlushes() == 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, cache.getMetrics().getFlushes());
+            assertEquals(Map.of(1, "one", 2, "two", 3, "three"), store.values);
+        }
+    }
+
+    @Test
+    void testFileBackingStoreSurvivesReopen() throws IOException {
+        try (CachedTable<Integer, String> cache = new CachedTable<>(
+                FileBackingStore.open(directory, ByteCodec.INTEGER, ByteCodec.STRING, 4), 2, EvictionPolicy.LRU)) {
+            for (int i = 0; i < 10; i++) {
+                cache.put(i, "value" + i);
+            }
+            cache.put(3, "updated");
+            cache.delete(4);
+        }
+
+        try (CachedTable<Integer, String> cache = new CachedTable<>(
+                FileBackingStore.open(directory, ByteCodec.INTEGER, ByteCodec.STRING), 2, EvictionPolicy.LRU)) {
+            assertEquals("value0", cache.get(0));
+            assertEquals("updated", cache.get(3));
+            assertNull(cache.get(4));
+            assertEquals("value9", cache.get(9));
+        }
+    }
+
+    private static class MemoryStore implements BackingStore<Integer, String> {
+        private final Map<Integer, String> values = new HashMap<>();
+        private int loads;
+        private int batches;
+        private int failures;
+
+        @Override
+        public synchronized Map<Integer, String> loadAll(Collection<? extends Integer> keys) {
+            Map<Integer, String> found = new HashMap<>();
+            for (Integer key : keys) {
+                loads++;
+                if (values.containsKey(key)) {
+                    found.put(key, values.get(key));
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public synchronized void writeAll(Map<? extends Integer, ? extends String> entries,
+                                          Collection<? extends Integer> deleted) throws IOException {
+            if (failures > 0) {
+                failures--;
+                throw new IOException("Store unavailable");
+            }
+            batches++;
+            values.putAll(entries);
+            deleted.forEach(values::remove);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ir.ac.kntu.twolevelhashtable.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class RedisBackingStoreTest {
+    private static final String PREFIX = "twolevelhashtable-cache-test";
+
+    private static final int PORT = 6391;
+
+    private RedisServer server;
+    private JedisPool pool;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            server = new RedisServer(PORT);
+            server.start();
+        } catch (IOException | RuntimeException e) {
+            server = null;
+        }
+        pool = new JedisPool("localhost", PORT);
+        boolean available;
+        try (Jedis jedis = pool.getResource()) {
+            available = "PONG".equals(jedis.ping());
+        } catch (JedisException e) {
+            available = false;
+        }
+        assumeTrue(available, "No Redis server could be started on port " + PORT);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Jedis jedis = pool.getResource()) {
+            jedis.del(PREFIX + ":entries");
+        } catch (JedisException ignored) {
+        }
+        pool.close();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    void testCacheOverRedis() throws IOException {
+        RedisBackingStore<Integer, String> store = new RedisBackingStore<>(pool, PREFIX, String.class);
+        try (CachedTable<Integer, String> cache = new CachedTable<>(store, 4, EvictionPolicy.CLOCK, 100, 0)) {
+            for (int i = 0; i < 1200; i++) {
+                cache.put(i, "value" + i);
+            }
+            cache.delete(7);
+        }
+
+        assertEquals(Map.of(1, "value1", 1199, "value1199"), store.loadAll(List.of(1, 7, 1199, 5000)));
+        try (CachedTable<Integer, String> cache = new CachedTable<>(store, 4, EvictionPolicy.LRU)) {
+            assertEquals("value500", cache.get(500));
+            assertNull(cache.get(7));
+            assertEquals(1, cache.getMetrics().getLoads());
+        }
+    }
+}
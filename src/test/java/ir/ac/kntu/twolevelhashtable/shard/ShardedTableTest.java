@@ -0,0 +1,143 @@
+package ir.ac.kntu.twolevelhashtable.shard;
+
+import ir.ac.kntu.twolevelhashtable.storage.ByteCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedTableTest {
+    private static List<Map.Entry<Integer, String>> entries(int from, int to) {
+        List<Map.Entry<Integer, String>> entries = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(i, "value" + i));
+        }
+        return entries;
+    }
+
+    @Test
+    void testConcurrentWritersAcrossLocalShards() throws Exception {
+        try (ShardedTable<Integer, String> table = new ShardedTable<>()) {
+            for (int i = 0; i < 4; i++) {
+                table.addShard("shard" + i, new LocalShard<>(key -> key, 256));
+            }
+
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int base = t * 1000;
+                writers.add(new Thread(() -> {
+                    try {
+                        table.putAll(entries(base, base + 1000));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            writers.forEach(Thread::start);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+
+            assertEquals(8000, table.size());
+            for (int count : table.shardSizes().values()) {
+                assertTrue(count > 1000, "unbalanced shards " + table.shardSizes());
+            }
+            assertEquals(List.of("value0", "value7999"), table.getAll(List.of(0, 7999)));
+            assertEquals(2, table.deleteAll(List.of(5, 6, 100000)));
+            assertNull(table.get(5));
+        }
+    }
+
+    @Test
+    void testRebalanceOnAddAndRemove() throws IOException {
+        try (ShardedTable<Integer, String> table = new ShardedTable<>()) {
+            table.addShard("a", new LocalShard<>(key -> key, 64));
+            table.addShard("b", new LocalShard<>(key -> key, 64));
+            table.putAll(entries(0, 2000));
+            List<String> owners = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                owners.add(table.shardFor(i));
+            }
+
+            table.addShard("c", new LocalShard<>(key -> key, 64));
+            assertEquals(2000, table.size());
+            assertTrue(table.shardSizes().get("c") > 0);
+            for (int i = 0; i < 2000; i++) {
+                assertEquals("value" + i, table.get(i));
+                String owner = table.shardFor(i);
+                assertTrue(owner.equals("c") || owner.equals(owners.get(i)));
+            }
+
+            Shard<Integer, String> removed = table.removeShard("a");
+            assertEquals(0, removed.size());
+            assertEquals(2000, table.size());
+            List<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                keys.add(i);
+            }
+            assertFalse(table.getAll(keys).contains(null));
+        }
+    }
+
+    @Test
+    void testRemoteShardsOverTcp() throws IOException {
+        LocalShard<Integer, String> first = new LocalShard<>(key -> key, 64);
+        LocalShard<Integer, String> second = new LocalShard<>(key -> key, 64);
+        try (ShardServer<Integer, String> firstServer = new ShardServer<>(first, 0, ByteCodec.INTEGER, ByteCodec.STRING);
+             ShardServer<Integer, String> secondServer = new ShardServer<>(second, 0, ByteCodec.INTEGER, ByteCodec.STRING);
+             ShardedTable<Integer, String> table = new ShardedTable<>()) {
+            table.addShard("first", new RemoteShard<>("localhost", firstServer.getPort(), ByteCodec.INTEGER, ByteCodec.STRING));
+            table.addShard("second", new RemoteShard<>("localhost", secondServer.getPort(), ByteCodec.INTEGER, ByteCodec.STRING));
+
+            table.putAll(entries(0, 500));
+            table.put(500, null);
+            assertEquals(501, first.size() + second.size());
+            assertTrue(first.size() > 0 && second.size() > 0);
+            assertEquals(List.of("value1", "value499"), table.getAll(List.of(1, 499)));
+            assertNull(table.get(500));
+            assertEquals(1, table.delete(7));
+            assertNull(table.get(7));
+
+            table.addShard("local", new LocalShard<>(key -> key, 64));
+            assertEquals(500, table.size());
+            assertEquals("value250", table.get(250));
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testRemoteShardReconnectsAfterFailedCall() throws IOException {
+        ByteCodec<Integer> failingCodec = new ByteCodec<>() {
+            @Override
+            public byte[] encode(Integer value) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("Negative key " + value);
+                }
+                return ByteCodec.INTEGER.encode(value);
+            }
+
+            @Override
+            public Integer decode(ByteBuffer buffer, int offset, int length) {
+                return ByteCodec.INTEGER.decode(buffer, offset, length);
+            }
+        };
+        LocalShard<Integer, String> local = new LocalShard<>(key -> key, 64);
+        try (ShardServer<Integer, String> server = new ShardServer<>(local, 0, ByteCodec.INTEGER, ByteCodec.STRING);
+             RemoteShard<Integer, String> remote = new RemoteShard<>("localhost", server.getPort(), failingCodec,
+                     ByteCodec.STRING)) {
+            assertThrows(IllegalArgumentException.class, () -> remote.putAll(List.of(Map.entry(1, "one"),
+                    Map.entry(-1, "minus one"))));
+            remote.putAll(entries(0, 10));
+            assertEquals(10, remote.size());
+            assertEquals(List.of("value3"), remote.getAll(List.of(3)));
+            assertEquals(1, remote.deleteAll(List.of(3, 99)));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ir.ac.kntu.twolevelhashtable.storage;
+
+import ir.ac.kntu.twolevelhashtable.table.TwoLevelHashTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedTwoLevelHashTableTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteAndReopen() throws IOException {
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 10);
+        for (int i = 0; i < 1000; i++) {
+            table.insert(i, "value" + i);
+        }
+        Path file = tempDir.resolve("table.bin");
+        MappedTwoLevelHashTable.write(table, file, ByteCodec.INTEGER, ByteCodec.STRING);
+
+        try (MappedTwoLevelHashTable<Integer, String> mapped = MappedTwoLevelHashTable.open(file, ByteCodec.INTEGER, ByteCodec.STRING)) {
+            assertEquals(1000, mapped.size());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals("value" + i, mapped.get(i));
+            }
+            assertNull(mapped.get(1000));
+            assertFalse(mapped.containsKey(-1));
+        }
+    }
+
+    @Test
+    void testDuplicateKeysAndNullValues() throws IOException {
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 10);
+        table.insert(1, "one");
+        table.insert(1, "uno");
+        table.insert(2, null);
+        Path file = tempDir.resolve("duplicates.bin");
+        MappedTwoLevelHashTable.write(table, file, ByteCodec.INTEGER, ByteCodec.STRING);
+
+        try (MappedTwoLevelHashTable<Integer, String> mapped = MappedTwoLevelHashTable.open(file, ByteCodec.INTEGER, ByteCodec.STRING)) {
+            LinkedList<String> values = mapped.search(1);
+            assertEquals(2, values.size());
+            assertEquals("one", values.getFirst());
+            assertTrue(mapped.containsKey(2));
+            assertNull(mapped.get(2));
+
+            int[] count = new int[1];
+            mapped.forEach((key, value) -> count[0]++);
+            assertEquals(3, count[0]);
+        }
+    }
+
+    @Test
+    void testRejectsForeignFile() throws IOException {
+        Path file = tempDir.resolve("garbage.bin");
+        Files.writeString(file, "definitely not a table file");
+        assertThrows(IOException.class, () -> MappedTwoLevelHashTable.open(file, ByteCodec.INTEGER, ByteCodec.STRING));
+    }
+
+    @Test
+    void testExpiredEntriesAreNotWritten() throws IOException, InterruptedException {
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 10);
+        table.insert(1, "session", 1, TimeUnit.MILLISECONDS);
+        table.insert(2, "kept");
+        Thread.sleep(20);
+
+        Path file = tempDir.resolve("expiring.bin");
+        MappedTwoLevelHashTable.write(table, file, ByteCodec.INTEGER, ByteCodec.STRING);
+        try (MappedTwoLevelHashTable<Integer, String> mapped = MappedTwoLevelHashTable.open(file, ByteCodec.INTEGER, ByteCodec.STRING)) {
+            assertEquals(1, mapped.size());
+            assertNull(mapped.get(1));
+            assertEquals("kept", mapped.get(2));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ir.ac.kntu.twolevelhashtable.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapTwoLevelHashTableTest {
+    @Test
+    void testInsertSearchAndDelete() {
+        try (OffHeapTwoLevelHashTable<Integer, String> table = new OffHeapTwoLevelHashTable<>(key -> key, 10, ByteCodec.INTEGER, ByteCodec.STRING)) {
+            table.insert(1, "one");
+            table.insert(11, "eleven");
+            table.insert(11, "once");
+            table.insert(21, null);
+
+            assertEquals("one", table.get(1));
+            assertEquals(List.of("eleven", "once"), table.search(11));
+            assertTrue(table.containsKey(21));
+            assertNull(table.get(21));
+            assertNull(table.search(31));
+            assertEquals(0.75, table.getCollisionRate());
+
+            assertTrue(table.delete(11));
+            assertFalse(table.containsKey(11));
+            assertTrue(table.delete(1));
+            assertTrue(table.containsKey(21));
+            table.insert(31, "thirty-one");
+            assertEquals("thirty-one", table.get(31));
+            assertEquals(2, table.size());
+        }
+    }
+
+    @Test
+    void testCompactionReclaimsDeletedRecords() {
+        try (OffHeapTwoLevelHashTable<Integer, String> table = new OffHeapTwoLevelHashTable<>(key -> key, 64, ByteCodec.INTEGER, ByteCodec.STRING, 4096)) {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 500; i++) {
+                    table.insert(i, "round" + round);
+                }
+                for (int i = 0; i < 500; i++) {
+                    assertTrue(table.delete(i));
+                }
+            }
+            for (int i = 0; i < 500; i++) {
+                table.insert(i, "value" + i);
+            }
+
+            assertEquals(500, table.size());
+            assertTrue(table.getOffHeapBytes() < 64 * 4096, "reserved " + table.getOffHeapBytes());
+            LinkedList<String> values = new LinkedList<>();
+            table.forEach((key, value) -> values.add(value));
+            assertEquals(500, values.size());
+            assertEquals("value499", table.get(499));
+        }
+    }
+
+    @Test
+    void testClosedTableRejectsAccess() {
+        OffHeapTwoLevelHashTable<Integer, String> table = new OffHeapTwoLevelHashTable<>(key -> key, 10, ByteCodec.INTEGER, ByteCodec.STRING);
+        table.insert(1, "one");
+        table.close();
+        assertThrows(IllegalStateException.class, () -> table.get(1));
+    }
+
+    @Test
+    void testCapacityBeyondBucketBufferIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapTwoLevelHashTable<>(key -> key, 1 << 29,
+                ByteCodec.INTEGER, ByteCodec.STRING));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapTwoLevelHashTable<>(key -> key, 0,
+                ByteCodec.INTEGER, ByteCodec.STRING));
+    }
+}
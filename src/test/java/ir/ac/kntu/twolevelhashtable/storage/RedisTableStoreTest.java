@@ -0,0 +1,123 @@
+package ir.ac.kntu.twolevelhashtable.storage;
+
+import ir.ac.kntu.twolevelhashtable.table.TwoLevelHashTable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class RedisTableStoreTest {
+    private static final String PREFIX = "twolevelhashtable-test";
+
+    private static final int PORT = 6390;
+
+    private RedisServer server;
+    private JedisPool pool;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            server = new RedisServer(PORT);
+            server.start();
+        } catch (IOException | RuntimeException e) {
+            server = null;
+        }
+        pool = new JedisPool("localhost", PORT);
+        boolean available;
+        try (Jedis jedis = pool.getResource()) {
+            available = "PONG".equals(jedis.ping());
+        } catch (JedisException e) {
+            available = false;
+        }
+        assumeTrue(available, "No Redis server could be started on port " + PORT);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Jedis jedis = pool.getResource()) {
+            jedis.del(PREFIX + ":buckets", PREFIX + ":buckets:staging", PREFIX + ":meta");
+        } catch (JedisException ignored) {
+        }
+        pool.close();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    void testSaveAndLoad() throws IOException {
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 10);
+        RedisTableStore<Integer, String> store = new RedisTableStore<>(pool, PREFIX, Integer.class, String.class);
+        store.attach(table);
+        for (int i = 0; i < 50; i++) {
+            table.insert(i, "value" + i);
+        }
+        assertEquals(10, store.save());
+
+        TwoLevelHashTable<Integer, String> restored = new TwoLevelHashTable<>(key -> key, 10);
+        RedisTableStore<Integer, String> restoredStore = new RedisTableStore<>(pool, PREFIX, Integer.class, String.class);
+        restoredStore.attach(restored);
+        assertTrue(restoredStore.load());
+        assertFalse(restoredStore.hasPendingChanges());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("value" + i, restored.get(i));
+        }
+    }
+
+    @Test
+    void testIncrementalSaveWritesOnlyDirtyBuckets() throws IOException {
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 10);
+        RedisTableStore<Integer, String> store = new RedisTableStore<>(pool, PREFIX, Integer.class, String.class);
+        store.attach(table);
+        for (int i = 0; i < 10; i++) {
+            table.insert(i, "value" + i);
+        }
+        store.save();
+
+        table.insert(13, "thirteen");
+        table.delete(5);
+        assertEquals(2, store.save());
+        assertEquals(0, store.save());
+
+        TwoLevelHashTable<Integer, String> restored = new TwoLevelHashTable<>(key -> key, 10);
+        RedisTableStore<Integer, String> restoredStore = new RedisTableStore<>(pool, PREFIX, Integer.class, String.class);
+        restoredStore.attach(restored);
+        restoredStore.load();
+        assertEquals("thirteen", restored.get(13));
+        assertNull(restored.get(5));
+        assertEquals(10, restored.size());
+    }
+
+    @Test
+    void testFailedLoadLeavesTableIntact() throws IOException {
+        TwoLevelHashTable<Integer, String> table = new TwoLevelHashTable<>(key -> key, 10);
+        RedisTableStore<Integer, String> store = new RedisTableStore<>(pool, PREFIX, Integer.class, String.class);
+        store.attach(table);
+        for (int i = 0; i < 10; i++) {
+            table.insert(i, "value" + i);
+        }
+        store.save();
+        try (Jedis jedis = pool.getResource()) {
+            jedis.hset(PREFIX + ":buckets", "3", "[[3, \"three\"");
+        }
+
+        assertThrows(IOException.class, store::load);
+        assertEquals(10, table.size());
+        assertEquals("value3", table.get(3));
+
+        table.clear();
+        store.save();
+        try (Jedis jedis = pool.getResource()) {
+            assertFalse(jedis.exists(PREFIX + ":buckets"));
+            assertFalse(jedis.exists(PREFIX + ":buckets:staging"));
+        }
+    }
+}
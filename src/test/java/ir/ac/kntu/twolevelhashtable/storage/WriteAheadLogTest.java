@@ -0,0 +1,116 @@
+package ir.ac.kntu.twolevelhashtable.storage;
+
+import ir.ac.kntu.twolevelhashtable.table.TwoLevelHashTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogTest {
+    @TempDir
+    Path tempDir;
+
+    private WriteAheadLog<Integer, String> open() throws IOException {
+        return WriteAheadLog.open(tempDir, new TwoLevelHashTable<>(key -> key, 10), ByteCodec.INTEGER, ByteCodec.STRING);
+    }
+
+    @Test
+    void testReplayAfterReopen() throws IOException {
+        try (WriteAheadLog<Integer, String> wal = open()) {
+            for (int i = 0; i < 100; i++) {
+                wal.insert(i, "value" + i);
+            }
+            assertTrue(wal.delete(5));
+            wal.insert(7, null);
+        }
+
+        try (WriteAheadLog<Integer, String> wal = open()) {
+            assertEquals(100, wal.getTable().size());
+            assertNull(wal.get(5));
+            assertEquals("value42", wal.get(42));
+            assertEquals(2, wal.search(7).size());
+        }
+    }
+
+    @Test
+    void testCompactionFoldsLogIntoSnapshot() throws IOException {
+        try (WriteAheadLog<Integer, String> wal = open()) {
+            for (int i = 0; i < 50; i++) {
+                wal.insert(i, "value" + i);
+            }
+            wal.compact();
+            assertEquals(1, wal.getGeneration());
+            wal.insert(50, "value50");
+            wal.delete(0);
+        }
+
+        assertTrue(Files.exists(tempDir.resolve("snapshot-1.bin")));
+        assertFalse(Files.exists(tempDir.resolve("wal-0.log")));
+
+        try (WriteAheadLog<Integer, String> wal = open()) {
+            assertEquals(50, wal.getTable().size());
+            assertNull(wal.get(0));
+            assertEquals("value50", wal.get(50));
+            assertEquals(1, wal.getGeneration());
+        }
+    }
+
+    @Test
+    void testTornTailIsDiscarded() throws IOException {
+        try (WriteAheadLog<Integer, String> wal = open()) {
+            wal.insert(1, "one");
+            wal.insert(2, "two");
+        }
+        Path log = tempDir.resolve("wal-0.log");
+        long intact = Files.size(log);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(intact - 3);
+        }
+
+        try (WriteAheadLog<Integer, String> wal = open()) {
+            assertEquals("one", wal.get(1));
+            assertNull(wal.get(2));
+            wal.insert(3, "three");
+        }
+        try (WriteAheadLog<Integer, String> wal = open()) {
+            assertEquals(2, wal.getTable().size());
+            assertEquals("three", wal.get(3));
+        }
+    }
+
+    @Test
+    void testConcurrentWritersAreAllDurable() throws Exception {
+        try (WriteAheadLog<Integer, String> wal = open()) {
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int base = t * 1000;
+                writers.add(new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 200; i++) {
+                            wal.insert(base + i, "value" + (base + i));
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            writers.forEach(Thread::start);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+
+        try (WriteAheadLog<Integer, String> wal = open()) {
+            assertEquals(1600, wal.getTable().size());
+            assertEquals("value7199", wal.get(7199));
+        }
+    }
+}